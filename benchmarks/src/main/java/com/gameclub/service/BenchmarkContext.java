@@ -0,0 +1,119 @@
+package com.gameclub.service;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
+import com.baomidou.mybatisplus.extension.spring.MybatisSqlSessionFactoryBean;
+import com.gameclub.config.CrawlerConfig;
+import com.gameclub.config.DatabaseInitializer;
+import com.gameclub.config.MyBatisPlusConfig;
+import com.gameclub.config.StartupTimeline;
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 基准使用的最小 Spring 上下文：临时 SQLite 文件 + MyBatis-Plus + 被测服务，
+ * 不启动 Web 容器，也不执行启动时的爬取。爬虫以 replay 模式运行，从临时 fixtures 目录读取响应。
+ */
+@Configuration
+@EnableTransactionManagement
+@MapperScan("com.gameclub.mapper")
+@Import({MyBatisPlusConfig.class, DatabaseInitializer.class, StartupTimeline.class, CrawlerConfig.class,
+        GameDataCache.class, ImageMirrorService.class, ImageVariantService.class, GamePlayService.class,
+        RoomRegistry.class, RoomLobby.class, RoomUserIndex.class, RoomExpiry.class, RoomService.class,
+        MatchmakingService.class, GameRefereeService.class, GameDataWriter.class, DataWriteLock.class,
+        GameDataVersionService.class, CrawlMetrics.class, CrawlerService.class})
+public class BenchmarkContext {
+
+    static AnnotationConfigApplicationContext start() throws Exception {
+        File dbFile = Files.createTempFile("gameclub-bench", ".db").toFile();
+        dbFile.deleteOnExit();
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("benchmark.db", dbFile.getAbsolutePath());
+        properties.put("gameclub.crawler.fetch-mode", PageFetcher.REPLAY);
+        properties.put("gameclub.crawler.fixtures-dir", Files.createTempDirectory("gameclub-fixtures").toString());
+        properties.put("gameclub.images.dir", Files.createTempDirectory("gameclub-images").toString());
+        // 默认隔离 5 分钟，创建+关闭的基准每秒释放十万个代码，几秒内就会用完全部代码
+        properties.put("gameclub.rooms.code-quarantine-ms", 1000);
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+        context.register(BenchmarkContext.class);
+        context.refresh();
+        context.getBean(DatabaseInitializer.class).run();
+        return context;
+    }
+
+    /**
+     * replay 模式读取的 fixtures 目录，基准在 setUp 中写入要回放的响应。
+     */
+    static FixtureStore fixtureStore(AnnotationConfigApplicationContext context) {
+        return new FixtureStore(Paths.get(context.getEnvironment().getProperty("gameclub.crawler.fixtures-dir")));
+    }
+
+    static String fixture(String name) throws IOException {
+        try (InputStream in = BenchmarkContext.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IOException("缺少基准数据文件: " + name);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource dataSource(@Value("${benchmark.db}") String dbPath) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:sqlite:" + dbPath);
+        dataSource.setDriverClassName("org.sqlite.JDBC");
+        return dataSource;
+    }
+
+    @Bean
+    public SqlSessionFactory sqlSessionFactory(DataSource dataSource, MybatisPlusInterceptor interceptor)
+            throws Exception {
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        MybatisSqlSessionFactoryBean factory = new MybatisSqlSessionFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setConfiguration(configuration);
+        factory.setPlugins(interceptor);
+        return factory.getObject();
+    }
+
+    @Bean
+    public JdbcTemplate jdbcTemplate(DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    @Bean
+    public PlatformTransactionManager transactionManager(DataSource dataSource) {
+        return new DataSourceTransactionManager(dataSource);
+    }
+}
@@ -0,0 +1,118 @@
+package com.gameclub.service;
+
+import org.jsoup.Jsoup;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 完整的站点爬取流程（抓取 -> 解析 -> 提取 -> 比对写库 -> 图片镜像 -> 刷新快照），
+ * 以 replay 模式回放 benchmarks 资源目录 fixtures 下的页面，不访问网络。
+ * 页面引用的图片以同一张 1x1 PNG 回放。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CrawlPipelineBenchmark {
+
+    private static final byte[] PIXEL_PNG = {
+            (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n', 0, 0, 0, 13, 'I', 'H', 'D', 'R',
+            0, 0, 0, 1, 0, 0, 0, 1, 8, 2, 0, 0, 0, (byte) 0x90, 'w', 'S', (byte) 0xde,
+            0, 0, 0, 12, 'I', 'D', 'A', 'T', 0x78, (byte) 0x9c, 0x63, (byte) 0xf8, (byte) 0xcf, (byte) 0xc0,
+            0, 0, 3, 1, 1, 0, (byte) 0xc9, (byte) 0xfe, (byte) 0x92, (byte) 0xef,
+            0, 0, 0, 0, 'I', 'E', 'N', 'D', (byte) 0xae, 'B', 0x60, (byte) 0x82};
+
+    @State(Scope.Benchmark)
+    public static class Pipeline {
+        AnnotationConfigApplicationContext context;
+        CrawlerService crawlerService;
+        JdbcTemplate jdbcTemplate;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            context = BenchmarkContext.start();
+            crawlerService = context.getBean(CrawlerService.class);
+            jdbcTemplate = context.getBean(JdbcTemplate.class);
+            FixtureStore store = BenchmarkContext.fixtureStore(context);
+            String deltaHtml = BenchmarkContext.fixture("df.qq.com.html");
+            String yjwujianHtml = BenchmarkContext.fixture("www.yjwujian.cn.html");
+            record(store, CrawlerService.DELTA_URL, deltaHtml,
+                    crawlerService.extractDelta(Jsoup.parse(deltaHtml, CrawlerService.DELTA_URL)));
+            record(store, CrawlerService.YJWUJIAN_URL, yjwujianHtml,
+                    crawlerService.extractYjwujian(Jsoup.parse(yjwujianHtml, CrawlerService.YJWUJIAN_URL)));
+            // 先完整爬取一次，之后写库阶段只有比对、没有变更
+            crawlerService.crawlDeltaForce(new CrawlJob.SiteProgress(CrawlerService.DELTA));
+            crawlerService.crawlYjwujian(new CrawlJob.SiteProgress(CrawlerService.YJWUJIAN));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+
+        private void record(FixtureStore store, String url, String html,
+                            Map<String, List<CrawlerService.GameDataItem>> extracted) throws Exception {
+            Map<String, String> headers = new HashMap<>();
+            headers.put("Content-Type", "text/html; charset=utf-8");
+            headers.put("ETag", "\"" + url.hashCode() + "\"");
+            store.save(new FetchResponse(url, 200, headers, html.getBytes("UTF-8")));
+
+            Map<String, String> imageHeaders = new HashMap<>();
+            imageHeaders.put("Content-Type", "image/png");
+            for (List<CrawlerService.GameDataItem> items : extracted.values()) {
+                recordImages(store, items, imageHeaders);
+            }
+        }
+
+        private void recordImages(FixtureStore store, List<CrawlerService.GameDataItem> items,
+                                  Map<String, String> headers) throws Exception {
+            for (CrawlerService.GameDataItem item : items) {
+                if (item.imageUrl != null && item.imageUrl.startsWith("http")) {
+                    store.save(new FetchResponse(item.imageUrl, 200, headers, PIXEL_PNG));
+                }
+            }
+        }
+    }
+
+    /**
+     * 每次调用前清除数据源状态，使爬取不再走条件请求和哈希跳过，执行完整的解析、提取与比对写库。
+     */
+    @State(Scope.Thread)
+    public static class ForceFull {
+        @Setup(Level.Invocation)
+        public void reset(Pipeline pipeline) {
+            pipeline.jdbcTemplate.update("DELETE FROM crawl_source_state");
+        }
+    }
+
+    @Benchmark
+    public CrawlJob.SiteProgress crawlDeltaFull(Pipeline pipeline, ForceFull force) {
+        CrawlJob.SiteProgress progress = new CrawlJob.SiteProgress(CrawlerService.DELTA);
+        pipeline.crawlerService.crawlDeltaForce(progress);
+        return progress;
+    }
+
+    @Benchmark
+    public CrawlJob.SiteProgress crawlYjwujianFull(Pipeline pipeline, ForceFull force) {
+        CrawlJob.SiteProgress progress = new CrawlJob.SiteProgress(CrawlerService.YJWUJIAN);
+        pipeline.crawlerService.crawlYjwujian(progress);
+        return progress;
+    }
+
+    /**
+     * 录制的 ETag 与上次相同，回放返回 304，只剩条件请求和状态更新。
+     */
+    @Benchmark
+    public CrawlJob.SiteProgress crawlDeltaNotModified(Pipeline pipeline) {
+        CrawlJob.SiteProgress progress = new CrawlJob.SiteProgress(CrawlerService.DELTA);
+        pipeline.crawlerService.crawlDeltaForce(progress);
+        return progress;
+    }
+}
@@ -0,0 +1,106 @@
+package com.gameclub.service;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CrawlerService 的页面解析、页面索引与各 extract 方法，输入为 src/main/resources/fixtures 下保存的页面。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CrawlerExtractBenchmark {
+
+    private CrawlerService crawlerService;
+    private String deltaHtml;
+    private String yjwujianHtml;
+    private Document deltaDoc;
+    private Document yjwujianDoc;
+    private PageIndex deltaIndex;
+    private PageIndex yjwujianIndex;
+
+    @Setup
+    public void setUp() throws Exception {
+        crawlerService = new CrawlerService();
+        // 不启动 Spring 容器，手工注入 extract 方法用到的指标
+        Field metrics = ReflectionUtils.findField(CrawlerService.class, "crawlMetrics");
+        ReflectionUtils.makeAccessible(metrics);
+        ReflectionUtils.setField(metrics, crawlerService, new CrawlMetrics());
+        deltaHtml = BenchmarkContext.fixture("df.qq.com.html");
+        yjwujianHtml = BenchmarkContext.fixture("www.yjwujian.cn.html");
+        deltaDoc = Jsoup.parse(deltaHtml, "https://df.qq.com/");
+        yjwujianDoc = Jsoup.parse(yjwujianHtml, "https://www.yjwujian.cn/");
+        deltaIndex = PageIndex.of(deltaDoc);
+        yjwujianIndex = PageIndex.of(yjwujianDoc);
+    }
+
+    @Benchmark
+    public Document parseDelta() {
+        return Jsoup.parse(deltaHtml, "https://df.qq.com/");
+    }
+
+    @Benchmark
+    public PageIndex indexDelta() {
+        return PageIndex.of(deltaDoc);
+    }
+
+    @Benchmark
+    public Map<String, List<CrawlerService.GameDataItem>> extractDelta() {
+        return crawlerService.extractDelta(deltaDoc);
+    }
+
+    @Benchmark
+    public List<CrawlerService.GameDataItem> extractDeltaCharacters() {
+        return crawlerService.extractDeltaCharactersWithImages(deltaIndex);
+    }
+
+    @Benchmark
+    public List<CrawlerService.GameDataItem> extractDeltaMaps() {
+        return crawlerService.extractDeltaMapsWithImages(deltaIndex);
+    }
+
+    @Benchmark
+    public List<CrawlerService.GameDataItem> extractDeltaWeapons() {
+        return crawlerService.extractDeltaWeaponsWithImages(deltaIndex);
+    }
+
+    @Benchmark
+    public Document parseYjwujian() {
+        return Jsoup.parse(yjwujianHtml, "https://www.yjwujian.cn/");
+    }
+
+    @Benchmark
+    public PageIndex indexYjwujian() {
+        return PageIndex.of(yjwujianDoc);
+    }
+
+    @Benchmark
+    public Map<String, List<CrawlerService.GameDataItem>> extractYjwujian() {
+        return crawlerService.extractYjwujian(yjwujianDoc);
+    }
+
+    @Benchmark
+    public List<CrawlerService.GameDataItem> extractYjwujianHeroes() {
+        return crawlerService.extractYjwujianHeroesWithImages(yjwujianIndex);
+    }
+
+    @Benchmark
+    public List<CrawlerService.GameDataItem> extractYjwujianMaps() {
+        return crawlerService.extractYjwujianMapsWithImages(yjwujianIndex);
+    }
+
+    @Benchmark
+    public List<CrawlerService.GameDataItem> extractYjwujianWeapons() {
+        return crawlerService.extractYjwujianWeaponsWithImages(yjwujianIndex);
+    }
+}
@@ -0,0 +1,104 @@
+package com.gameclub.service;
+
+import com.gameclub.entity.GameData;
+import com.gameclub.mapper.GameDataMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GamePlayService.generateGamePlay 及其直接写出 JSON 的版本。
+ * 数据量与线上 game_data 一致（三角洲 13/5/6，永劫无间 8/4/22）。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GamePlayBenchmark {
+
+    private AnnotationConfigApplicationContext context;
+    private GamePlayService gamePlayService;
+    private LoadoutFilter filter;
+
+    @State(Scope.Thread)
+    public static class Output {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream(16 * 1024);
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkContext.start();
+        GameDataMapper mapper = context.getBean(GameDataMapper.class);
+        seed(mapper, "delta", "character", 13);
+        seed(mapper, "delta", "map", 5);
+        seed(mapper, "delta", "weapon", 6);
+        seed(mapper, "yjwujian", "hero", 8);
+        seed(mapper, "yjwujian", "map", 4);
+        seed(mapper, "yjwujian", "weapon", 22);
+        // 种子数据写在版本 1，登记为生效版本后快照才能读到
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        for (String gameType : Arrays.asList("delta", "yjwujian")) {
+            jdbcTemplate.update("INSERT INTO game_data_version (game_type, version, active) VALUES (?, 1, 1)", gameType);
+        }
+        context.getBean(GameDataCache.class).reload();
+        gamePlayService = context.getBean(GamePlayService.class);
+        filter = new LoadoutFilter(null,
+                new HashSet<>(Arrays.asList("weapon-0", "weapon-1", "weapon-2", "map-0")),
+                new HashSet<>(Arrays.asList("hero-3", "weapon-5")),
+                LoadoutFilter.DEFAULT_FAVORITE_BOOST);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    private static void seed(GameDataMapper mapper, String gameType, String dataType, int count) {
+        for (int i = 0; i < count; i++) {
+            GameData data = new GameData();
+            data.setGameType(gameType);
+            data.setDataType(dataType);
+            data.setName(dataType + "-" + i);
+            data.setVersion(1);
+            // 一半条目使用真实图片URL，另一半走占位图
+            data.setImageUrl(i % 2 == 0 ? "https://game.gtimg.cn/images/dfm/cp/a20240906main/p4_m" + i + ".png" : null);
+            data.setCreatedAt(LocalDateTime.now());
+            data.setUpdatedAt(LocalDateTime.now());
+            mapper.insert(data);
+        }
+    }
+
+    @Benchmark
+    public GamePlayService.GamePlayResult generateDelta() {
+        return gamePlayService.generateGamePlay("delta");
+    }
+
+    @Benchmark
+    public GamePlayService.GamePlayResult generateYjwujianFiltered() {
+        return gamePlayService.generateGamePlay("yjwujian", filter);
+    }
+
+    @Benchmark
+    public int writeDelta(Output output) throws IOException {
+        output.buffer.reset();
+        gamePlayService.writeGamePlay("delta", LoadoutFilter.NONE, output.buffer);
+        return output.buffer.size();
+    }
+
+    @Benchmark
+    public int writeBatchNoRepeats(Output output) throws IOException {
+        output.buffer.reset();
+        gamePlayService.writeGamePlays("yjwujian", GamePlayService.MAX_BATCH_SIZE, true, LoadoutFilter.NONE,
+                output.buffer);
+        return output.buffer.size();
+    }
+}
@@ -0,0 +1,56 @@
+package com.gameclub.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MatchmakingService.enqueue + cancel，8 个线程同时进出同一游戏类型的队列。
+ * 每个线程使用相隔很远的积分，同一时刻每个线程最多只有一张排队中的票，因此不会配对建房，
+ * 测量的是入队、取消以及匹配线程处理新票的开销，不受房间代码和写库的影响。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class MatchmakingBenchmark {
+
+    private AnnotationConfigApplicationContext context;
+    private MatchmakingService matchmakingService;
+
+    @State(Scope.Thread)
+    public static class Player {
+        private static int threads;
+
+        final String userId;
+        final int rating;
+
+        public Player() {
+            synchronized (Player.class) {
+                userId = "player-" + threads;
+                rating = threads++ * 10000 % MatchmakingService.MAX_RATING;
+            }
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkContext.start();
+        matchmakingService = context.getBean(MatchmakingService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean enqueueAndCancel(Player player) {
+        matchmakingService.enqueue("xiangqi", player.userId, "玩家", player.rating);
+        return matchmakingService.cancel(player.userId);
+    }
+}
@@ -0,0 +1,41 @@
+package com.gameclub.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RoomCodeAllocator 在不同占用率下的分配 + 释放，4 个线程同时进行。
+ * 隔离时间为 0，释放的代码立即可以再次分配，占用率在测量过程中保持不变。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class RoomCodeAllocatorBenchmark {
+
+    // 预先占用的代码比例
+    @Param({"0.1", "0.5", "0.9"})
+    private double occupancy;
+
+    private RoomCodeAllocator allocator;
+
+    @Setup
+    public void setUp() {
+        allocator = new RoomCodeAllocator(0);
+        int occupied = (int) (RoomCodeAllocator.CAPACITY * occupancy);
+        for (int i = 0; i < occupied; i++) {
+            allocator.allocate();
+        }
+    }
+
+    @Benchmark
+    public String allocateAndRelease() {
+        String code = allocator.allocate();
+        allocator.release(code);
+        return code;
+    }
+}
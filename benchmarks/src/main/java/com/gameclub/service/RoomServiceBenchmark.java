@@ -0,0 +1,68 @@
+package com.gameclub.service;
+
+import com.gameclub.entity.Room;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RoomService.createRoom / joinRoom / getUserRooms，基于临时 SQLite 文件。
+ * 为了让表规模在测量过程中保持稳定，创建后由房主关闭、加入后由客人离开，
+ * 因此每次操作包含一次配对的清理调用。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoomServiceBenchmark {
+
+    // 预先创建、供 joinRoom 轮流使用的等待中房间数量
+    private static final int WAITING_ROOMS = 1000;
+
+    private AnnotationConfigApplicationContext context;
+    private RoomService roomService;
+    private String[] waitingCodes;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkContext.start();
+        roomService = context.getBean(RoomService.class);
+        waitingCodes = new String[WAITING_ROOMS];
+        for (int i = 0; i < WAITING_ROOMS; i++) {
+            waitingCodes[i] = roomService.createRoom("wuziqi", "host-" + i, "房主" + i).getRoomCode();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Room createAndClose() {
+        Room room = roomService.createRoom("wuziqi", "bench-host", "房主");
+        roomService.leaveRoom(room.getRoomCode(), "bench-host");
+        return room;
+    }
+
+    @Benchmark
+    public Room joinAndLeave() {
+        String roomCode = waitingCodes[next];
+        next = (next + 1) % WAITING_ROOMS;
+        Room room = roomService.joinRoom(roomCode, "bench-guest", "客人");
+        roomService.leaveRoom(roomCode, "bench-guest");
+        return room;
+    }
+
+    @Benchmark
+    public List<Room> userRooms() {
+        String hostId = "host-" + next;
+        next = (next + 1) % WAITING_ROOMS;
+        return roomService.getUserRooms(hostId);
+    }
+}
@@ -0,0 +1,61 @@
+package com.gameclub.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WuziqiBoard.play：从空棋盘按预先生成的随机顺序落子直到分出胜负或下满，每次调用下完一局。
+ * 预生成 GAMES 局（固定种子）轮流使用，每局的步数不同，平均约 107 步，用于换算单步耗时；
+ * gc.alloc.rate.norm 应为 0。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class WuziqiBoardBenchmark {
+
+    private static final int GAMES = 256;
+    private static final int CELLS = WuziqiBoard.SIZE * WuziqiBoard.SIZE;
+
+    private final WuziqiBoard board = new WuziqiBoard();
+    private int[][] games;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        games = new int[GAMES][CELLS];
+        for (int[] game : games) {
+            for (int i = 0; i < CELLS; i++) {
+                game[i] = i;
+            }
+            for (int i = CELLS - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = game[i];
+                game[i] = game[j];
+                game[j] = swap;
+            }
+        }
+    }
+
+    @Benchmark
+    public int playGame() {
+        int[] game = games[next];
+        next = (next + 1) % GAMES;
+        return play(game);
+    }
+
+    private int play(int[] game) {
+        board.reset();
+        for (int cell : game) {
+            if (board.play(cell / WuziqiBoard.SIZE, cell % WuziqiBoard.SIZE) != WuziqiBoard.ONGOING) {
+                break;
+            }
+        }
+        return board.moveCount();
+    }
+}
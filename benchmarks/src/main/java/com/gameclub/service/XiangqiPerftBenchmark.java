@@ -0,0 +1,72 @@
+package com.gameclub.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * XiangqiBoard 的 perft（给定深度的叶子节点数）。setUp 先用一组公开的 perft 结果校验走法生成，
+ * 任何一个局面的节点数不对都会中止基准；之后测量开局和一个中局局面的 perft 耗时，
+ * 节点数除以耗时即为每秒生成并校验的走法数。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class XiangqiPerftBenchmark {
+
+    // FEN -> 深度 1 到 4 的节点数
+    private static final String[][] SUITE = {
+            {XiangqiBoard.START_FEN, "44 1920 79666 3290240"},
+            {"r1ba1a3/4kn3/2n1b4/pNp1p1p1p/4c4/6P2/P1P2R2P/1CcC5/9/2BAKAB2 w - - 0 1", "38 1128 43929 1339047"},
+            {"1cbak4/9/n2a5/2p1p3p/5cp2/2n2N3/6PCP/3AB4/2C6/3A1K1N1 w - - 0 1", "7 281 8620 326201"},
+            {"5a3/3k5/3aR4/9/5r3/5n3/9/3A1A3/5K3/2BC2B2 w - - 0 1", "25 424 9850 202884"},
+            {"CRN1k1b2/3ca4/4ba3/9/2nr5/9/9/4B4/4A4/4KA3 w - - 0 1", "28 516 14808 395483"},
+            {"R1N1k1b2/9/3aba3/9/2nr5/2B6/9/4B4/4A4/4KA3 w - - 0 1", "21 364 7626 162837"},
+            {"4ka3/4a4/9/9/4N4/p8/9/4C3c/7n1/2BK5 w - - 0 1", "23 345 8124 149272"},
+            {"2b1ka3/9/b3N4/4n4/9/9/9/4C4/2p6/2BK5 w - - 0 1", "21 195 3883 48060"},
+            {"1C2ka3/9/C1Nab1n2/p3p3p/6p2/9/P3P3P/3AB4/3p2c2/c1BAK4 w - - 0 1", "30 830 22787 649866"},
+            {"CnN1k1b2/c3a4/4ba3/9/2nr5/9/9/4C4/4A4/4KA3 w - - 0 1", "19 583 11714 376467"},
+    };
+
+    private static final Map<String, String> POSITIONS = new HashMap<>();
+
+    static {
+        POSITIONS.put("start", SUITE[0][0]);
+        POSITIONS.put("middlegame", SUITE[1][0]);
+    }
+
+    @Param({"start", "middlegame"})
+    private String position;
+
+    @Param({"3"})
+    private int depth;
+
+    private XiangqiBoard board;
+
+    @Setup
+    public void setUp() {
+        for (String[] entry : SUITE) {
+            XiangqiBoard suiteBoard = new XiangqiBoard(entry[0]);
+            long[] expected = Arrays.stream(entry[1].split(" ")).mapToLong(Long::parseLong).toArray();
+            for (int d = 1; d <= expected.length; d++) {
+                long nodes = suiteBoard.perft(d);
+                if (nodes != expected[d - 1]) {
+                    throw new IllegalStateException("perft 不一致: " + entry[0] + " 深度 " + d
+                            + " 期望 " + expected[d - 1] + " 实际 " + nodes);
+                }
+            }
+        }
+        board = new XiangqiBoard(POSITIONS.get(position));
+    }
+
+    @Benchmark
+    public long perft() {
+        return board.perft(depth);
+    }
+}
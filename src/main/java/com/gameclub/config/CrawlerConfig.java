@@ -0,0 +1,70 @@
+package com.gameclub.config;
+
+import com.gameclub.service.FixtureStore;
+import com.gameclub.service.LivePageFetcher;
+import com.gameclub.service.PageFetcher;
+import com.gameclub.service.RecordingPageFetcher;
+import com.gameclub.service.ReplayPageFetcher;
+import com.gameclub.service.RetryBudget;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+@Configuration
+public class CrawlerConfig {
+    private static final Logger logger = LoggerFactory.getLogger(CrawlerConfig.class);
+
+    @Value("${gameclub.crawler.http.max-per-host:4}")
+    private int maxPerHost;
+
+    @Value("${gameclub.crawler.http.connect-timeout-ms:5000}")
+    private int connectTimeoutMs;
+
+    @Value("${gameclub.crawler.http.read-timeout-ms:10000}")
+    private int readTimeoutMs;
+
+    @Value("${gameclub.crawler.http.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${gameclub.crawler.http.backoff-ms:500}")
+    private long backoffMs;
+
+    @Value("${gameclub.crawler.http.max-backoff-ms:8000}")
+    private long maxBackoffMs;
+
+    @Value("${gameclub.crawler.http.retry-budget:10}")
+    private int retryBudget;
+
+    @Value("${gameclub.crawler.http.retry-ratio:0.2}")
+    private double retryRatio;
+
+    /**
+     * 按 gameclub.crawler.fetch-mode 选择抓取器：live（默认）、record、replay。
+     */
+    @Bean
+    public PageFetcher pageFetcher(@Value("${gameclub.crawler.fetch-mode:live}") String mode,
+                                   @Value("${gameclub.crawler.fixtures-dir:fixtures}") String fixturesDir) {
+        FixtureStore store = new FixtureStore(Paths.get(fixturesDir).toAbsolutePath().normalize());
+        switch (mode) {
+            case PageFetcher.LIVE:
+                return liveFetcher();
+            case PageFetcher.RECORD:
+                logger.info("爬虫抓取模式: record，录制到 {}", fixturesDir);
+                return new RecordingPageFetcher(liveFetcher(), store);
+            case PageFetcher.REPLAY:
+                logger.info("爬虫抓取模式: replay，从 {} 读取", fixturesDir);
+                return new ReplayPageFetcher(store);
+            default:
+                throw new IllegalArgumentException("不支持的抓取模式: " + mode);
+        }
+    }
+
+    private LivePageFetcher liveFetcher() {
+        return new LivePageFetcher(maxPerHost, connectTimeoutMs, readTimeoutMs,
+                maxAttempts, backoffMs, maxBackoffMs, new RetryBudget(retryBudget, retryRatio));
+    }
+}
@@ -8,10 +8,11 @@ import org.springframework.core.annotation.Order;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
-import javax.sql.DataSource;
-import java.sql.Connection;
-import java.sql.DatabaseMetaData;
-import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 @Component
 @Order(1) // 确保在 InitialDataLoader 之前执行
@@ -19,15 +20,22 @@ public class DatabaseInitializer implements CommandLineRunner {
     private static final Logger logger = LoggerFactory.getLogger(DatabaseInitializer.class);
 
     @Autowired
-    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
 
     @Autowired
-    private JdbcTemplate jdbcTemplate;
+    private StartupTimeline startupTimeline;
+
+    // 本次检查开始时已有的表和各表的列，各用一次查询读出，避免逐个表、逐个列查询元数据
+    private Set<String> tables;
+    private final Map<String, Set<String>> columns = new HashMap<>();
 
     @Override
     public void run(String... args) throws Exception {
         logger.info("检查数据库表结构...");
-        
+        tables = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT name FROM sqlite_master WHERE type = 'table'", String.class));
+        columns.clear();
+
         // 检查 game_data 表是否存在
         boolean tableExists = checkTableExists("game_data");
         
@@ -37,8 +45,28 @@ public class DatabaseInitializer implements CommandLineRunner {
             logger.info("game_data 表创建完成");
         } else {
             logger.info("game_data 表已存在");
-            // 检查是否需要添加 image_url 列
-            addImageUrlColumnIfNotExists();
+            // 检查是否需要添加 image_url、weight 列
+            addColumnIfNotExists("game_data", "image_url", "TEXT");
+            addColumnIfNotExists("game_data", "weight", "REAL DEFAULT 1");
+            addColumnIfNotExists("game_data", "version", "INTEGER NOT NULL DEFAULT 0");
+        }
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_game_data_type_version ON game_data (game_type, version)");
+
+        // 检查 game_data_version 表是否存在
+        if (!checkTableExists("game_data_version")) {
+            logger.info("game_data_version 表不存在，正在创建...");
+            createGameDataVersionTable();
+            logger.info("game_data_version 表创建完成");
+        }
+        // 引入版本之前的数据都在 version 0，为其登记为生效版本
+        LocalDateTime now = LocalDateTime.now();
+        int migrated = jdbcTemplate.update("INSERT INTO game_data_version " +
+                "(game_type, version, active, item_count, created_at, activated_at) " +
+                "SELECT game_type, 0, 1, COUNT(*), ?, ? FROM game_data " +
+                "WHERE version = 0 AND game_type NOT IN (SELECT game_type FROM game_data_version) " +
+                "GROUP BY game_type", now, now);
+        if (migrated > 0) {
+            logger.info("已有的 {} 个游戏的数据登记为版本 0", migrated);
         }
 
         // 检查 rooms 表是否存在
@@ -50,19 +78,45 @@ public class DatabaseInitializer implements CommandLineRunner {
         } else {
             logger.info("rooms 表已存在");
         }
+        // 检查 rooms_archive 表是否存在
+        if (!checkTableExists("rooms_archive")) {
+            logger.info("rooms_archive 表不存在，正在创建...");
+            createRoomsArchiveTable();
+            logger.info("rooms_archive 表创建完成");
+        }
+        // 启动时按状态加载未结束的房间
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_rooms_status_created ON rooms (status, created_at)");
+
+        // 检查 crawl_source_state 表是否存在
+        if (!checkTableExists("crawl_source_state")) {
+            logger.info("crawl_source_state 表不存在，正在创建...");
+            createCrawlSourceStateTable();
+            logger.info("crawl_source_state 表创建完成");
+        }
+
+        // 检查 image_mirror 表是否存在
+        if (!checkTableExists("image_mirror")) {
+            logger.info("image_mirror 表不存在，正在创建...");
+            createImageMirrorTable();
+            logger.info("image_mirror 表创建完成");
+        } else {
+            // 重新校验镜像图片所需的列
+            addColumnIfNotExists("image_mirror", "etag", "TEXT");
+            addColumnIfNotExists("image_mirror", "last_modified", "TEXT");
+            addColumnIfNotExists("image_mirror", "checked_at", "TEXT");
+        }
+
+        // 检查 image_variant 表是否存在
+        if (!checkTableExists("image_variant")) {
+            logger.info("image_variant 表不存在，正在创建...");
+            createImageVariantTable();
+            logger.info("image_variant 表创建完成");
+        }
+        startupTimeline.mark("数据库结构检查");
     }
 
     private boolean checkTableExists(String tableName) {
-        try (Connection connection = dataSource.getConnection()) {
-            DatabaseMetaData metaData = connection.getMetaData();
-            ResultSet tables = metaData.getTables(null, null, tableName, null);
-            boolean exists = tables.next();
-            tables.close();
-            return exists;
-        } catch (Exception e) {
-            logger.error("检查表是否存在时出错", e);
-            return false;
-        }
+        return tables.contains(tableName);
     }
 
     private void createGameDataTable() {
@@ -72,6 +126,8 @@ public class DatabaseInitializer implements CommandLineRunner {
                 "data_type TEXT NOT NULL, " +
                 "name TEXT NOT NULL, " +
                 "image_url TEXT, " +
+                "weight REAL DEFAULT 1, " +
+                "version INTEGER NOT NULL DEFAULT 0, " +
                 "created_at TEXT, " +
                 "updated_at TEXT" +
                 ")";
@@ -79,20 +135,32 @@ public class DatabaseInitializer implements CommandLineRunner {
         jdbcTemplate.execute(createTableSql);
     }
 
-    private void addImageUrlColumnIfNotExists() {
-        try (Connection connection = dataSource.getConnection()) {
-            DatabaseMetaData metaData = connection.getMetaData();
-            ResultSet columns = metaData.getColumns(null, null, "game_data", "image_url");
-            boolean columnExists = columns.next();
-            columns.close();
-            
-            if (!columnExists) {
-                logger.info("game_data 表缺少 image_url 列，正在添加...");
-                jdbcTemplate.execute("ALTER TABLE game_data ADD COLUMN image_url TEXT");
-                logger.info("image_url 列添加完成");
+    private void createGameDataVersionTable() {
+        String createTableSql = "CREATE TABLE IF NOT EXISTS game_data_version (" +
+                "game_type TEXT NOT NULL, " +
+                "version INTEGER NOT NULL, " +
+                "active INTEGER NOT NULL DEFAULT 0, " +
+                "item_count INTEGER, " +
+                "created_at TEXT, " +
+                "activated_at TEXT, " +
+                "PRIMARY KEY (game_type, version)" +
+                ")";
+
+        jdbcTemplate.execute(createTableSql);
+    }
+
+    private void addColumnIfNotExists(String tableName, String columnName, String definition) {
+        try {
+            Set<String> existing = columns.computeIfAbsent(tableName, table -> new HashSet<>(
+                    jdbcTemplate.query("PRAGMA table_info(" + table + ")", (rs, i) -> rs.getString("name"))));
+            if (!existing.contains(columnName)) {
+                logger.info("{} 表缺少 {} 列，正在添加...", tableName, columnName);
+                jdbcTemplate.execute("ALTER TABLE " + tableName + " ADD COLUMN " + columnName + " " + definition);
+                existing.add(columnName);
+                logger.info("{} 列添加完成", columnName);
             }
         } catch (Exception e) {
-            logger.error("检查或添加 image_url 列时出错", e);
+            logger.error("检查或添加 {} 列时出错", columnName, e);
         }
     }
 
@@ -112,5 +180,69 @@ public class DatabaseInitializer implements CommandLineRunner {
         
         jdbcTemplate.execute(createTableSql);
     }
-}
 
+    // 已结束的房间，结构与 rooms 相同，另记归档时间；房间代码会被复用，不设唯一约束
+    private void createRoomsArchiveTable() {
+        String createTableSql = "CREATE TABLE IF NOT EXISTS rooms_archive (" +
+                "id INTEGER PRIMARY KEY, " +
+                "room_code TEXT NOT NULL, " +
+                "game_type TEXT NOT NULL, " +
+                "host_id TEXT NOT NULL, " +
+                "host_name TEXT NOT NULL, " +
+                "guest_id TEXT, " +
+                "guest_name TEXT, " +
+                "status TEXT NOT NULL, " +
+                "created_at TEXT, " +
+                "updated_at TEXT, " +
+                "archived_at TEXT" +
+                ")";
+
+        jdbcTemplate.execute(createTableSql);
+    }
+
+    private void createImageMirrorTable() {
+        String createTableSql = "CREATE TABLE IF NOT EXISTS image_mirror (" +
+                "source_url TEXT PRIMARY KEY, " +
+                "hash TEXT NOT NULL, " +
+                "content_type TEXT, " +
+                "size INTEGER, " +
+                "mirrored_at TEXT, " +
+                "etag TEXT, " +
+                "last_modified TEXT, " +
+                "checked_at TEXT" +
+                ")";
+
+        jdbcTemplate.execute(createTableSql);
+    }
+
+    private void createImageVariantTable() {
+        String createTableSql = "CREATE TABLE IF NOT EXISTS image_variant (" +
+                "source_hash TEXT NOT NULL, " +
+                "size INTEGER NOT NULL, " +
+                "hash TEXT NOT NULL, " +
+                "content_type TEXT, " +
+                "width INTEGER, " +
+                "height INTEGER, " +
+                "bytes INTEGER, " +
+                "created_at TEXT, " +
+                "PRIMARY KEY (source_hash, size)" +
+                ")";
+
+        jdbcTemplate.execute(createTableSql);
+    }
+
+    private void createCrawlSourceStateTable() {
+        String createTableSql = "CREATE TABLE IF NOT EXISTS crawl_source_state (" +
+                "source TEXT PRIMARY KEY, " +
+                "url TEXT, " +
+                "etag TEXT, " +
+                "last_modified TEXT, " +
+                "body_hash TEXT, " +
+                "items_hash TEXT, " +
+                "checked_at TEXT, " +
+                "changed_at TEXT" +
+                ")";
+
+        jdbcTemplate.execute(createTableSql);
+    }
+}
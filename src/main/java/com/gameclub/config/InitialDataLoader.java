@@ -1,37 +1,54 @@
 package com.gameclub.config;
 
-import com.gameclub.service.CrawlerService;
+import com.gameclub.service.CrawlJob;
+import com.gameclub.service.CrawlScheduler;
+import com.gameclub.service.GameDataCache;
+import com.gameclub.service.GameDataSnapshot;
+import com.gameclub.service.RoomRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
+/**
+ * 启动时先用数据库中持久化的生效版本建立快照并立即提供服务，刷新爬取作为后台任务进行，不阻塞启动，
+ * 之后由 CrawlScheduler 按各数据源的结果继续调度。
+ * 首次启动（数据库为空）时，默认数据由后台任务在抓取失败后写入。
+ */
 @Component
 @org.springframework.core.annotation.Order(2) // 在 DatabaseInitializer 之后执行
 public class InitialDataLoader implements CommandLineRunner {
     private static final Logger logger = LoggerFactory.getLogger(InitialDataLoader.class);
 
     @Autowired
-    private CrawlerService crawlerService;
+    private CrawlScheduler crawlScheduler;
+
+    @Autowired
+    private GameDataCache gameDataCache;
+
+    @Autowired
+    private RoomRegistry roomRegistry;
+
+    @Autowired
+    private StartupTimeline startupTimeline;
 
     @Override
     public void run(String... args) throws Exception {
-        logger.info("应用启动，检查数据库数据...");
-        // 首次启动时初始化默认数据
+        GameDataSnapshot snapshot = gameDataCache.current();
+        logger.info("已加载持久化的游戏数据快照，共 {} 条数据", snapshot.size());
+        startupTimeline.mark("加载游戏数据快照");
+
+        roomRegistry.load();
+        startupTimeline.mark("加载房间");
+
         try {
-            crawlerService.crawlYjwujian();
-            crawlerService.crawlDeltaForce();
-            logger.info("初始数据加载完成");
+            CrawlJob job = crawlScheduler.start("startup");
+            startupTimeline.setInitialCrawlJobId(job.getId());
+            logger.info("后台刷新任务 {} 已启动", job.getId());
         } catch (Exception e) {
-            logger.warn("初始数据加载失败，将在首次使用时初始化", e);
+            logger.warn("启动后台刷新失败，将在手动触发时刷新", e);
         }
+        startupTimeline.mark("启动后台爬取");
     }
 }
-
-
-
-
-
-
-
@@ -0,0 +1,109 @@
+package com.gameclub.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 启动时间线：以 JVM 启动为零点，每次 {@link #mark} 结束一个阶段，阶段从上一次 mark 开始。
+ * 应用就绪时输出各阶段耗时，之后可通过 GET /api/startup 查看。后台的首次爬取不计入启动耗时，只记录任务 ID。
+ */
+@Component
+public class StartupTimeline {
+    private static final Logger logger = LoggerFactory.getLogger(StartupTimeline.class);
+
+    private final List<Phase> phases = new ArrayList<>();
+    private long lastMark;
+    private Long readyMs;
+    private volatile String initialCrawlJobId;
+
+    @EventListener
+    public void onContextRefreshed(ContextRefreshedEvent event) {
+        if (event.getApplicationContext().getParent() == null) {
+            mark("JVM 启动、Spring 上下文与 Web 服务器");
+        }
+    }
+
+    @EventListener
+    public void onStarted(ApplicationStartedEvent event) {
+        mark("启动事件");
+    }
+
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        List<Phase> snapshot;
+        synchronized (this) {
+            mark("其余启动任务");
+            readyMs = lastMark;
+            snapshot = new ArrayList<>(phases);
+        }
+        StringBuilder summary = new StringBuilder();
+        for (Phase phase : snapshot) {
+            summary.append("\n  ").append(phase.getName()).append(": ").append(phase.getDurationMs()).append("ms");
+        }
+        logger.info("应用启动完成，距 JVM 启动 {}ms{}", readyMs, summary);
+    }
+
+    /**
+     * 结束一个启动阶段。就绪之后的调用不再记录。
+     */
+    public synchronized void mark(String name) {
+        if (readyMs != null) {
+            return;
+        }
+        long now = ManagementFactory.getRuntimeMXBean().getUptime();
+        phases.add(new Phase(name, lastMark, now - lastMark));
+        lastMark = now;
+    }
+
+    public synchronized List<Phase> getPhases() {
+        return new ArrayList<>(phases);
+    }
+
+    /**
+     * 应用就绪时距 JVM 启动的毫秒数，尚未就绪时为 null。
+     */
+    public synchronized Long getReadyMs() {
+        return readyMs;
+    }
+
+    public String getInitialCrawlJobId() {
+        return initialCrawlJobId;
+    }
+
+    public void setInitialCrawlJobId(String initialCrawlJobId) {
+        this.initialCrawlJobId = initialCrawlJobId;
+    }
+
+    public static final class Phase {
+        private final String name;
+        private final long startMs;
+        private final long durationMs;
+
+        Phase(String name, long startMs, long durationMs) {
+            this.name = name;
+            this.startMs = startMs;
+            this.durationMs = durationMs;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getStartMs() {
+            return startMs;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+    }
+}
@@ -1,11 +1,17 @@
 package com.gameclub.controller;
 
+import com.gameclub.entity.GameDataVersion;
+import com.gameclub.service.CrawlJob;
+import com.gameclub.service.CrawlMetrics;
+import com.gameclub.service.CrawlScheduler;
 import com.gameclub.service.CrawlerService;
+import com.gameclub.service.GameDataVersionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -16,24 +22,90 @@ public class CrawlerController {
     @Autowired
     private CrawlerService crawlerService;
 
+    @Autowired
+    private GameDataVersionService gameDataVersionService;
+
+    @Autowired
+    private CrawlScheduler crawlScheduler;
+
+    @Autowired
+    private CrawlMetrics crawlMetrics;
+
     @PostMapping("/trigger")
-    public ResponseEntity<Map<String, String>> triggerCrawl() {
+    public ResponseEntity<Map<String, Object>> triggerCrawl() {
         try {
-            crawlerService.triggerCrawl();
-            Map<String, String> response = new HashMap<>();
+            CrawlJob job = crawlerService.triggerCrawl();
+            Map<String, Object> response = new HashMap<>();
             response.put("message", "爬取任务已启动");
-            return ResponseEntity.ok(response);
+            response.put("jobId", job.getId());
+            response.put("job", job);
+            return ResponseEntity.accepted().body(response);
         } catch (Exception e) {
-            Map<String, String> response = new HashMap<>();
+            Map<String, Object> response = new HashMap<>();
             response.put("error", "爬取任务启动失败: " + e.getMessage());
             return ResponseEntity.status(500).body(response);
         }
     }
-}
-
 
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<CrawlJob> getJob(@PathVariable String jobId) {
+        CrawlJob job = crawlerService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(job);
+    }
 
+    @GetMapping("/status")
+    public ResponseEntity<CrawlJob> getLatestJob() {
+        CrawlJob job = crawlerService.getLatestJob();
+        if (job == null) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(job);
+    }
 
+    /**
+     * 各数据源的调度状态：当前检查间隔、连续失败次数、上次结果和下一次爬取时间。
+     */
+    @GetMapping("/schedule")
+    public ResponseEntity<List<CrawlScheduler.SourceSchedule>> getSchedule() {
+        return ResponseEntity.ok(crawlScheduler.getSchedules());
+    }
 
+    /**
+     * 爬虫各阶段耗时、抓取字节数、提取条数、默认数据和写入行数，Prometheus 文本格式。
+     */
+    @GetMapping(value = "/metrics", produces = "text/plain; version=0.0.4; charset=utf-8")
+    public String getMetrics() {
+        return crawlMetrics.scrape();
+    }
 
+    @GetMapping("/versions/{gameType}")
+    public ResponseEntity<List<GameDataVersion>> getVersions(@PathVariable String gameType) {
+        return ResponseEntity.ok(gameDataVersionService.versions(gameType));
+    }
 
+    /**
+     * 回滚游戏数据。请求体可选 {"version": n}，省略时回滚到上一个版本。
+     */
+    @PostMapping("/versions/{gameType}/rollback")
+    public ResponseEntity<Map<String, Object>> rollback(@PathVariable String gameType,
+                                                        @RequestBody(required = false) Map<String, Object> request) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            Integer version = null;
+            Object requested = request != null ? request.get("version") : null;
+            if (requested != null) {
+                version = Integer.valueOf(requested.toString());
+            }
+            GameDataVersion active = gameDataVersionService.rollback(gameType, version);
+            response.put("message", "已回滚到版本 " + active.getVersion());
+            response.put("version", active);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+}
@@ -1,11 +1,17 @@
 package com.gameclub.controller;
 
 import com.gameclub.service.GamePlayService;
+import com.gameclub.service.LoadoutFilter;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/game")
@@ -15,20 +21,103 @@ public class GameController {
     @Autowired
     private GamePlayService gamePlayService;
 
+    /**
+     * 响应由快照中预先编码的 JSON 片段直接拼接写出；带 count 时输出 JSON 数组，边生成边写出。
+     */
     @PostMapping("/generate")
-    public ResponseEntity<GamePlayService.GamePlayResult> generateGamePlay(@RequestBody Map<String, String> request) {
-        String game = request.get("game");
+    public void generateGamePlay(@RequestBody Map<String, Object> request, HttpServletResponse response)
+            throws IOException {
+        String game = stringValue(request.get("game"));
         if (game == null || (!game.equals("delta") && !game.equals("yjwujian"))) {
-            return ResponseEntity.badRequest().build();
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return;
         }
-        GamePlayService.GamePlayResult result = gamePlayService.generateGamePlay(game);
-        return ResponseEntity.ok(result);
-    }
-}
 
+        LoadoutFilter filter;
+        try {
+            filter = parseFilter(request);
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
 
+        // imageSize 为缩略图边长（像素），不传时返回原图
+        int imageSize = GamePlayService.ORIGINAL_IMAGE;
+        String imageSizeValue = stringValue(request.get("imageSize"));
+        if (imageSizeValue != null) {
+            try {
+                imageSize = Integer.parseInt(imageSizeValue.trim());
+            } catch (NumberFormatException e) {
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                return;
+            }
+            if (!gamePlayService.supportsImageSize(imageSize)) {
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                return;
+            }
+        }
 
+        String countValue = stringValue(request.get("count"));
+        if (countValue == null) {
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            gamePlayService.writeGamePlay(game, filter, imageSize, response.getOutputStream());
+            return;
+        }
 
+        // 批量模式
+        int count;
+        try {
+            count = Integer.parseInt(countValue.trim());
+        } catch (NumberFormatException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        if (count < 1 || count > GamePlayService.MAX_BATCH_SIZE) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        boolean noRepeats = Boolean.parseBoolean(stringValue(request.get("noRepeats")));
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        gamePlayService.writeGamePlays(game, count, noRepeats, filter, imageSize, response.getOutputStream());
+    }
 
+    // include / exclude / favorites 为名称数组，favoriteBoost 为偏好条目的权重倍数
+    private LoadoutFilter parseFilter(Map<String, Object> request) {
+        Set<String> include = nameSet(request.get("include"));
+        Set<String> exclude = nameSet(request.get("exclude"));
+        Set<String> favorites = nameSet(request.get("favorites"));
+        double favoriteBoost = LoadoutFilter.DEFAULT_FAVORITE_BOOST;
+        String boostValue = stringValue(request.get("favoriteBoost"));
+        if (boostValue != null) {
+            favoriteBoost = Double.parseDouble(boostValue.trim());
+            if (!(favoriteBoost >= 1.0 && favoriteBoost <= 100.0)) {
+                throw new IllegalArgumentException("favoriteBoost 超出范围");
+            }
+        }
+        if (include == null && exclude == null && favorites == null) {
+            return LoadoutFilter.NONE;
+        }
+        return new LoadoutFilter(include, exclude, favorites, favoriteBoost);
+    }
 
+    private static Set<String> nameSet(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (!(value instanceof Collection)) {
+            throw new IllegalArgumentException("需要名称数组");
+        }
+        Set<String> names = new HashSet<>();
+        for (Object name : (Collection<?>) value) {
+            if (name != null) {
+                names.add(name.toString());
+            }
+        }
+        return names.isEmpty() ? null : names;
+    }
 
+    private static String stringValue(Object value) {
+        return value != null ? value.toString() : null;
+    }
+}
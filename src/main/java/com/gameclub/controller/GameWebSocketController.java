@@ -1,7 +1,8 @@
 package com.gameclub.controller;
 
+import com.gameclub.service.GameRefereeService;
+import com.gameclub.service.RoomService;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
@@ -12,24 +13,57 @@ import java.util.Map;
 public class GameWebSocketController {
 
     private final SimpMessagingTemplate messagingTemplate;
+    private final RoomService roomService;
+    private final GameRefereeService gameRefereeService;
 
-    public GameWebSocketController(SimpMessagingTemplate messagingTemplate) {
+    public GameWebSocketController(SimpMessagingTemplate messagingTemplate, RoomService roomService,
+                                   GameRefereeService gameRefereeService) {
         this.messagingTemplate = messagingTemplate;
+        this.roomService = roomService;
+        this.gameRefereeService = gameRefereeService;
     }
 
+    /**
+     * 落子。五子棋、象棋由服务端裁判校验后广播到 /topic/game/{roomCode}，非法走法只通知落子的玩家
+     * （/queue/game/{userId}，type 为 move_rejected），房间不存在时同样拒绝；其他游戏原样转发。
+     */
     @MessageMapping("/game/move")
-    @SendTo("/topic/game/{roomCode}")
-    public Map<String, Object> handleGameMove(Map<String, Object> message) {
-        // 转发游戏移动消息到房间
+    public void handleGameMove(Map<String, Object> message) {
+        String roomCode = (String) message.get("roomCode");
+        // 落子算作房间活动，推迟空闲超时
+        roomService.touch(roomCode);
         Map<String, Object> response = new HashMap<>();
         response.put("type", "move");
-        response.put("data", message);
-        return response;
+        if (gameRefereeService.referees(roomCode)) {
+            String userId = (String) message.get("userId");
+            try {
+                if (userId == null) {
+                    throw new IllegalArgumentException("缺少 userId");
+                }
+                response.put("data", gameRefereeService.move(roomCode, userId, message));
+            } catch (IllegalArgumentException e) {
+                Map<String, Object> data = new HashMap<>();
+                data.put("roomCode", roomCode);
+                data.put("error", e.getMessage());
+                Map<String, Object> rejected = new HashMap<>();
+                rejected.put("type", "move_rejected");
+                rejected.put("data", data);
+                if (userId != null) {
+                    messagingTemplate.convertAndSend("/queue/game/" + userId, rejected);
+                }
+                return;
+            }
+        } else {
+            // 转发游戏移动消息到房间
+            response.put("data", message);
+        }
+        messagingTemplate.convertAndSend("/topic/game/" + roomCode, response);
     }
 
     @MessageMapping("/game/join")
     public void handleGameJoin(Map<String, Object> message) {
         String roomCode = (String) message.get("roomCode");
+        roomService.touch(roomCode);
         // 通知房间内其他玩家有新玩家加入
         Map<String, Object> response = new HashMap<>();
         response.put("type", "player_joined");
@@ -0,0 +1,60 @@
+package com.gameclub.controller;
+
+import com.gameclub.service.MatchmakingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 快速匹配。加入队列前先订阅 /queue/match/{userId}，配对成功后在那里收到房间信息。
+ */
+@RestController
+@RequestMapping("/api/match")
+@CrossOrigin(origins = "http://localhost:3000")
+public class MatchController {
+
+    @Autowired
+    private MatchmakingService matchmakingService;
+
+    @PostMapping("/join")
+    public ResponseEntity<Map<String, Object>> join(@RequestBody Map<String, String> request) {
+        String gameType = request.get("gameType");
+        String userId = request.get("userId");
+        String userName = request.get("userName");
+        String rating = request.get("rating");
+
+        if (gameType == null || userId == null || userName == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            matchmakingService.enqueue(gameType, userId, userName, rating != null ? Integer.valueOf(rating) : null);
+            return ResponseEntity.ok(matchmakingService.status(userId));
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    @PostMapping("/cancel")
+    public ResponseEntity<Map<String, Object>> cancel(@RequestBody Map<String, String> request) {
+        String userId = request.get("userId");
+
+        if (userId == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("cancelled", matchmakingService.cancel(userId));
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/status/{userId}")
+    public ResponseEntity<Map<String, Object>> status(@PathVariable String userId) {
+        return ResponseEntity.ok(matchmakingService.status(userId));
+    }
+}
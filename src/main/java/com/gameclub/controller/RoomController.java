@@ -1,6 +1,7 @@
 package com.gameclub.controller;
 
 import com.gameclub.entity.Room;
+import com.gameclub.service.GameRefereeService;
 import com.gameclub.service.RoomService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -18,6 +19,9 @@ public class RoomController {
     @Autowired
     private RoomService roomService;
 
+    @Autowired
+    private GameRefereeService gameRefereeService;
+
     @PostMapping("/create")
     public ResponseEntity<Map<String, Object>> createRoom(@RequestBody Map<String, String> request) {
         String gameType = request.get("gameType");
@@ -71,12 +75,41 @@ public class RoomController {
         return ResponseEntity.ok(room);
     }
 
+    /**
+     * 服务端裁判的对局状态（五子棋、象棋），断线重连后据此恢复棋盘，之后的落子仍从 /topic/game/{roomCode} 接收。
+     */
+    @GetMapping("/{roomCode}/game")
+    public ResponseEntity<Map<String, Object>> getGame(@PathVariable String roomCode) {
+        Map<String, Object> game = gameRefereeService.state(roomCode);
+        if (game == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(game);
+    }
+
     @GetMapping("/waiting")
     public ResponseEntity<List<Room>> getWaitingRooms() {
         List<Room> rooms = roomService.getWaitingRooms();
         return ResponseEntity.ok(rooms);
     }
 
+    /**
+     * 大厅分页：gameType 省略时包含所有游戏，cursor 为上一页返回的 nextCursor。
+     * 之后的变化通过 /topic/lobby/{gameType} 推送，不需要轮询。
+     */
+    @GetMapping("/lobby")
+    public ResponseEntity<Map<String, Object>> getLobby(@RequestParam(required = false) String gameType,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(roomService.getLobby(gameType, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<Room>> getUserRooms(@PathVariable String userId) {
         List<Room> rooms = roomService.getUserRooms(userId);
@@ -0,0 +1,40 @@
+package com.gameclub.controller;
+
+import com.gameclub.config.StartupTimeline;
+import com.gameclub.service.CrawlJob;
+import com.gameclub.service.CrawlerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/startup")
+@CrossOrigin(origins = "http://localhost:3000")
+public class StartupController {
+
+    @Autowired
+    private StartupTimeline startupTimeline;
+
+    @Autowired
+    private CrawlerService crawlerService;
+
+    /**
+     * 启动时间线：各阶段距 JVM 启动的开始时间和耗时，以及启动时发起的后台爬取任务。
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getTimeline() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("readyMs", startupTimeline.getReadyMs());
+        response.put("phases", startupTimeline.getPhases());
+        String jobId = startupTimeline.getInitialCrawlJobId();
+        if (jobId != null) {
+            CrawlJob job = crawlerService.getJob(jobId);
+            response.put("initialCrawlJobId", jobId);
+            response.put("initialCrawlJob", job);
+        }
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,100 @@
+package com.gameclub.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+
+import java.time.LocalDateTime;
+
+@TableName("crawl_source_state")
+public class CrawlSourceState {
+    @TableId(value = "source", type = IdType.INPUT)
+    private String source; // 数据源，与 game_type 一致: delta, yjwujian
+
+    @TableField("url")
+    private String url;
+
+    @TableField("etag")
+    private String etag; // 上次响应的 ETag
+
+    @TableField("last_modified")
+    private String lastModified; // 上次响应的 Last-Modified
+
+    @TableField("body_hash")
+    private String bodyHash; // 上次页面内容的 SHA-256
+
+    @TableField("items_hash")
+    private String itemsHash; // 上次提取结果的 SHA-256
+
+    @TableField("checked_at")
+    private LocalDateTime checkedAt; // 最近一次检查时间
+
+    @TableField("changed_at")
+    private LocalDateTime changedAt; // 最近一次数据发生变化的时间
+
+    // Getters and Setters
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(String lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    public String getBodyHash() {
+        return bodyHash;
+    }
+
+    public void setBodyHash(String bodyHash) {
+        this.bodyHash = bodyHash;
+    }
+
+    public String getItemsHash() {
+        return itemsHash;
+    }
+
+    public void setItemsHash(String itemsHash) {
+        this.itemsHash = itemsHash;
+    }
+
+    public LocalDateTime getCheckedAt() {
+        return checkedAt;
+    }
+
+    public void setCheckedAt(LocalDateTime checkedAt) {
+        this.checkedAt = checkedAt;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(LocalDateTime changedAt) {
+        this.changedAt = changedAt;
+    }
+}
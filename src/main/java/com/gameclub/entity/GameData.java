@@ -24,6 +24,12 @@ public class GameData {
     @TableField("image_url")
     private String imageUrl;
 
+    @TableField("weight")
+    private Double weight; // 抽取权重，为空时按 1 处理
+
+    @TableField("version")
+    private Integer version; // 所属的数据版本（game_data_version），只有生效版本对外可见
+
     @TableField("created_at")
     private LocalDateTime createdAt;
 
@@ -71,6 +77,22 @@ public class GameData {
         this.imageUrl = imageUrl;
     }
 
+    public Double getWeight() {
+        return weight;
+    }
+
+    public void setWeight(Double weight) {
+        this.weight = weight;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,76 @@
+package com.gameclub.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+
+import java.time.LocalDateTime;
+
+@TableName("game_data_version")
+public class GameDataVersion {
+    @TableField("game_type")
+    private String gameType;
+
+    @TableField("version")
+    private Integer version; // 同一游戏内递增，game_data.version 指向它
+
+    @TableField("active")
+    private Boolean active; // 每个游戏只有一个生效的版本，读取方只看这一版
+
+    @TableField("item_count")
+    private Integer itemCount;
+
+    @TableField("created_at")
+    private LocalDateTime createdAt;
+
+    @TableField("activated_at")
+    private LocalDateTime activatedAt; // 最近一次切换为生效版本的时间
+
+    // Getters and Setters
+    public String getGameType() {
+        return gameType;
+    }
+
+    public void setGameType(String gameType) {
+        this.gameType = gameType;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
+    public Boolean getActive() {
+        return active;
+    }
+
+    public void setActive(Boolean active) {
+        this.active = active;
+    }
+
+    public Integer getItemCount() {
+        return itemCount;
+    }
+
+    public void setItemCount(Integer itemCount) {
+        this.itemCount = itemCount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getActivatedAt() {
+        return activatedAt;
+    }
+
+    public void setActivatedAt(LocalDateTime activatedAt) {
+        this.activatedAt = activatedAt;
+    }
+}
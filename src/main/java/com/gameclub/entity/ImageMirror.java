@@ -0,0 +1,100 @@
+package com.gameclub.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+
+import java.time.LocalDateTime;
+
+@TableName("image_mirror")
+public class ImageMirror {
+    @TableId(value = "source_url", type = IdType.INPUT)
+    private String sourceUrl; // 原始图片URL
+
+    @TableField("hash")
+    private String hash; // 图片内容的 SHA-256，同时是本地文件名
+
+    @TableField("content_type")
+    private String contentType;
+
+    @TableField("size")
+    private Long size;
+
+    @TableField("mirrored_at")
+    private LocalDateTime mirroredAt; // 当前内容的下载时间
+
+    @TableField("etag")
+    private String etag;
+
+    @TableField("last_modified")
+    private String lastModified;
+
+    @TableField("checked_at")
+    private LocalDateTime checkedAt; // 最近一次向源站确认的时间
+
+    // Getters and Setters
+    public String getSourceUrl() {
+        return sourceUrl;
+    }
+
+    public void setSourceUrl(String sourceUrl) {
+        this.sourceUrl = sourceUrl;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+
+    public void setSize(Long size) {
+        this.size = size;
+    }
+
+    public LocalDateTime getMirroredAt() {
+        return mirroredAt;
+    }
+
+    public void setMirroredAt(LocalDateTime mirroredAt) {
+        this.mirroredAt = mirroredAt;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(String lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    public LocalDateTime getCheckedAt() {
+        return checkedAt;
+    }
+
+    public void setCheckedAt(LocalDateTime checkedAt) {
+        this.checkedAt = checkedAt;
+    }
+}
@@ -0,0 +1,98 @@
+package com.gameclub.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+
+import java.time.LocalDateTime;
+
+@TableName("image_variant")
+public class ImageVariant {
+    @TableField("source_hash")
+    private String sourceHash; // 原图（image_mirror.hash）的哈希
+
+    @TableField("size")
+    private Integer size; // 目标边长（像素），缩放后不超过 size x size
+
+    @TableField("hash")
+    private String hash; // 缩略图内容的哈希；原图不大于目标尺寸或无法解码时等于 source_hash
+
+    @TableField("content_type")
+    private String contentType;
+
+    @TableField("width")
+    private Integer width;
+
+    @TableField("height")
+    private Integer height;
+
+    @TableField("bytes")
+    private Long bytes;
+
+    @TableField("created_at")
+    private LocalDateTime createdAt;
+
+    // Getters and Setters
+    public String getSourceHash() {
+        return sourceHash;
+    }
+
+    public void setSourceHash(String sourceHash) {
+        this.sourceHash = sourceHash;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public Integer getWidth() {
+        return width;
+    }
+
+    public void setWidth(Integer width) {
+        this.width = width;
+    }
+
+    public Integer getHeight() {
+        return height;
+    }
+
+    public void setHeight(Integer height) {
+        this.height = height;
+    }
+
+    public Long getBytes() {
+        return bytes;
+    }
+
+    public void setBytes(Long bytes) {
+        this.bytes = bytes;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -7,18 +7,23 @@ import org.apache.ibatis.annotations.Select;
 
 import java.util.List;
 
+/**
+ * game_data 中同时存放多个版本，以下查询只返回各游戏生效版本（game_data_version.active = 1）的数据。
+ */
 @Mapper
 public interface GameDataMapper extends BaseMapper<GameData> {
-    @Select("SELECT * FROM game_data WHERE game_type = #{gameType} AND data_type = #{dataType}")
-    List<GameData> findByGameTypeAndDataType(String gameType, String dataType);
-
-    @Select("SELECT * FROM game_data WHERE game_type = #{gameType}")
-    List<GameData> findByGameType(String gameType);
-}
-
-
-
+    String ACTIVE = "SELECT d.* FROM game_data d JOIN game_data_version v " +
+            "ON v.game_type = d.game_type AND v.version = d.version AND v.active = 1";
 
+    @Select(ACTIVE)
+    List<GameData> findActive();
 
+    @Select(ACTIVE + " WHERE d.game_type = #{gameType} AND d.data_type = #{dataType}")
+    List<GameData> findByGameTypeAndDataType(String gameType, String dataType);
 
+    @Select(ACTIVE + " WHERE d.game_type = #{gameType}")
+    List<GameData> findByGameType(String gameType);
 
+    @Select("SELECT COUNT(*) FROM (" + ACTIVE + " WHERE d.game_type = #{gameType})")
+    long countByGameType(String gameType);
+}
@@ -0,0 +1,9 @@
+package com.gameclub.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.gameclub.entity.ImageMirror;
+import org.apache.ibatis.annotations.Mapper;
+
+@Mapper
+public interface ImageMirrorMapper extends BaseMapper<ImageMirror> {
+}
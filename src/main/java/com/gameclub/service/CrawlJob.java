@@ -0,0 +1,197 @@
+package com.gameclub.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 一次后台爬取任务的状态，包含每个站点的进度和耗时，供状态接口直接序列化返回。
+ */
+public class CrawlJob {
+    public static final String RUNNING = "running";
+    public static final String COMPLETED = "completed";
+    public static final String FAILED = "failed";
+
+    private final String id = UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+    private final String trigger;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private final long createdNanos = System.nanoTime();
+    private final Map<String, SiteProgress> sites;
+    private volatile String status = RUNNING;
+    private volatile LocalDateTime finishedAt;
+    private volatile long durationMs;
+    private final CompletableFuture<CrawlJob> completion = new CompletableFuture<>();
+
+    public CrawlJob(String trigger, String... sites) {
+        this.trigger = trigger;
+        Map<String, SiteProgress> progress = new LinkedHashMap<>();
+        for (String site : sites) {
+            progress.put(site, new SiteProgress(site));
+        }
+        this.sites = Collections.unmodifiableMap(progress);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getTrigger() {
+        return trigger;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public long getDurationMs() {
+        return finishedAt != null ? durationMs : (System.nanoTime() - createdNanos) / 1_000_000;
+    }
+
+    public List<SiteProgress> getSites() {
+        return new ArrayList<>(sites.values());
+    }
+
+    public SiteProgress site(String site) {
+        return sites.get(site);
+    }
+
+    public boolean isFinished() {
+        return !RUNNING.equals(status);
+    }
+
+    void finish() {
+        boolean allDone = true;
+        for (SiteProgress progress : sites.values()) {
+            allDone &= SiteProgress.DONE.equals(progress.getStage());
+        }
+        this.durationMs = (System.nanoTime() - createdNanos) / 1_000_000;
+        this.finishedAt = LocalDateTime.now();
+        this.status = allDone ? COMPLETED : FAILED;
+        completion.complete(this);
+    }
+
+    /**
+     * 任务结束（finish）时完成。
+     */
+    CompletableFuture<CrawlJob> completion() {
+        return completion;
+    }
+
+    /**
+     * 单个站点的进度：pending -> fetching -> extracting -> persisting -> mirroring -> done，
+     * 出错时为 failed，超时为 timeout。
+     */
+    public static class SiteProgress {
+        public static final String PENDING = "pending";
+        public static final String FETCHING = "fetching";
+        public static final String EXTRACTING = "extracting";
+        public static final String PERSISTING = "persisting";
+        public static final String MIRRORING = "mirroring";
+        public static final String DONE = "done";
+        public static final String FAILED = "failed";
+        public static final String TIMEOUT = "timeout";
+
+        // 站点完成时的结果：数据已更新，或因页面/内容未变化而跳过
+        public static final String CHANGED = "changed";
+        public static final String NOT_MODIFIED = "not_modified";
+        public static final String BODY_UNCHANGED = "body_unchanged";
+        public static final String ITEMS_UNCHANGED = "items_unchanged";
+
+        private final String site;
+        private volatile String stage = PENDING;
+        private volatile long startedNanos;
+        private volatile long durationMs;
+        private volatile int itemCount;
+        private volatile String outcome;
+        private volatile String error;
+
+        public SiteProgress(String site) {
+            this.site = site;
+        }
+
+        public String getSite() {
+            return site;
+        }
+
+        public String getStage() {
+            return stage;
+        }
+
+        public long getDurationMs() {
+            if (startedNanos == 0) {
+                return 0;
+            }
+            return isTerminal() ? durationMs : (System.nanoTime() - startedNanos) / 1_000_000;
+        }
+
+        public int getItemCount() {
+            return itemCount;
+        }
+
+        public String getOutcome() {
+            return outcome;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        synchronized void stage(String stage) {
+            if (isTerminal()) {
+                // 已超时的站点任务可能仍在运行，不再覆盖最终状态
+                return;
+            }
+            if (startedNanos == 0) {
+                startedNanos = System.nanoTime();
+            }
+            this.stage = stage;
+        }
+
+        void done(int itemCount) {
+            end(DONE, CHANGED, itemCount, null);
+        }
+
+        void unchanged(String outcome) {
+            end(DONE, outcome, 0, null);
+        }
+
+        void failed(String error) {
+            end(FAILED, null, 0, error);
+        }
+
+        void timedOut(long timeoutMs) {
+            end(TIMEOUT, null, 0, "超过 " + timeoutMs + "ms 未完成");
+        }
+
+        // 与 stage 相同，已结束后不再修改任何字段
+        private synchronized void end(String finalStage, String outcome, int itemCount, String error) {
+            if (isTerminal()) {
+                return;
+            }
+            if (startedNanos != 0) {
+                this.durationMs = (System.nanoTime() - startedNanos) / 1_000_000;
+            }
+            this.itemCount = itemCount;
+            this.outcome = outcome;
+            this.error = error;
+            this.stage = finalStage;
+        }
+
+        private boolean isTerminal() {
+            return DONE.equals(stage) || FAILED.equals(stage) || TIMEOUT.equals(stage);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.gameclub.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 爬虫流水线的指标：按数据源、阶段记录耗时分布，以及抓取字节数、各分类提取条数、使用默认数据的次数和写入行数。
+ * 指标只保存在内存中，进程重启后从零开始；{@link #scrape()} 按 Prometheus 文本格式输出，
+ * 由 /api/crawler/metrics 提供给监控抓取。
+ */
+@Service
+public class CrawlMetrics {
+    public static final String FETCH = "fetch";
+    public static final String PARSE = "parse";
+    public static final String EXTRACT = "extract";
+    public static final String IMAGE = "image";
+    public static final String PERSIST = "persist";
+    public static final String TOTAL = "total";
+
+    // 耗时分布的桶上界（秒），覆盖从解析一个分类的几毫秒到带重试的整站爬取
+    private static final double[] BUCKETS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120};
+
+    private final ConcurrentMap<String, Histogram> stageSeconds = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> fetchedBytes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> itemsExtracted = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> lastItems = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> fallbacks = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> rowsWritten = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一个阶段的耗时；extract 阶段带分类，其他阶段 category 为 null。
+     */
+    public void recordStage(String source, String stage, String category, long nanos) {
+        String labels = labels("source", source, "stage", stage, "category", category);
+        stageSeconds.computeIfAbsent(labels, k -> new Histogram()).record(nanos);
+    }
+
+    /**
+     * kind 为 page 或 image。
+     */
+    public void recordFetched(String source, String kind, long bytes) {
+        counter(fetchedBytes, labels("source", source, "kind", kind)).add(bytes);
+    }
+
+    public void recordExtracted(String source, String category, int items) {
+        String labels = labels("source", source, "category", category);
+        counter(itemsExtracted, labels).add(items);
+        lastItems.computeIfAbsent(labels, k -> new AtomicLong()).set(items);
+    }
+
+    /**
+     * 使用了默认数据：category 为提取时用默认列表代替的分类，整站失败时为 site。
+     */
+    public void recordFallback(String source, String category) {
+        counter(fallbacks, labels("source", source, "category", category)).increment();
+    }
+
+    public void recordRowsWritten(String source, int rows) {
+        counter(rowsWritten, labels("source", source)).add(rows);
+    }
+
+    public void recordOutcome(String source, String outcome) {
+        counter(outcomes, labels("source", source, "outcome", outcome)).increment();
+    }
+
+    /**
+     * Prometheus 文本格式（version 0.0.4）的全部指标。
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        out.append("# HELP gameclub_crawl_stage_seconds 爬取各阶段耗时\n");
+        out.append("# TYPE gameclub_crawl_stage_seconds histogram\n");
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(stageSeconds).entrySet()) {
+            entry.getValue().write(out, "gameclub_crawl_stage_seconds", entry.getKey());
+        }
+        writeCounters(out, "gameclub_crawl_fetched_bytes_total", "抓取的页面和图片字节数（解压后）", fetchedBytes);
+        writeCounters(out, "gameclub_crawl_items_extracted_total", "各分类提取到的条数", itemsExtracted);
+        out.append("# HELP gameclub_crawl_items_last 最近一次提取各分类的条数\n");
+        out.append("# TYPE gameclub_crawl_items_last gauge\n");
+        for (Map.Entry<String, AtomicLong> entry : new TreeMap<>(lastItems).entrySet()) {
+            sample(out, "gameclub_crawl_items_last", entry.getKey(), entry.getValue().get());
+        }
+        writeCounters(out, "gameclub_crawl_fallbacks_total", "使用默认数据的次数", fallbacks);
+        writeCounters(out, "gameclub_crawl_rows_written_total", "写入 game_data 的行数", rowsWritten);
+        writeCounters(out, "gameclub_crawl_outcomes_total", "各数据源爬取结果", outcomes);
+        return out.toString();
+    }
+
+    private static LongAdder counter(ConcurrentMap<String, LongAdder> counters, String labels) {
+        return counters.computeIfAbsent(labels, k -> new LongAdder());
+    }
+
+    private static void writeCounters(StringBuilder out, String name, String help,
+                                      ConcurrentMap<String, LongAdder> counters) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" counter\n");
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(counters).entrySet()) {
+            sample(out, name, entry.getKey(), entry.getValue().sum());
+        }
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, Object value) {
+        out.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    // key1="value1",key2="value2"，值为 null 的标签省略
+    private static String labels(String... pairs) {
+        StringBuilder labels = new StringBuilder();
+        for (int i = 0; i < pairs.length; i += 2) {
+            if (pairs[i + 1] == null) {
+                continue;
+            }
+            if (labels.length() > 0) {
+                labels.append(',');
+            }
+            labels.append(pairs[i]).append("=\"").append(escape(pairs[i + 1])).append('"');
+        }
+        return labels.toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static final class Histogram {
+        private final LongAdder[] buckets = new LongAdder[BUCKETS.length];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sumNanos = new LongAdder();
+
+        Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long nanos) {
+            double seconds = nanos / (double) TimeUnit.SECONDS.toNanos(1);
+            for (int i = 0; i < BUCKETS.length; i++) {
+                if (seconds <= BUCKETS[i]) {
+                    buckets[i].increment();
+                    break;
+                }
+            }
+            count.increment();
+            sumNanos.add(nanos);
+        }
+
+        // 桶按累计值输出，最后是 +Inf、_sum 和 _count
+        void write(StringBuilder out, String name, String labels) {
+            String prefix = labels.isEmpty() ? "" : labels + ",";
+            long cumulative = 0;
+            for (int i = 0; i < BUCKETS.length; i++) {
+                cumulative += buckets[i].sum();
+                sample(out, name + "_bucket", prefix + "le=\"" + BUCKETS[i] + "\"", cumulative);
+            }
+            sample(out, name + "_bucket", prefix + "le=\"+Inf\"", count.sum());
+            sample(out, name + "_sum", labels, sumNanos.sum() / (double) TimeUnit.SECONDS.toNanos(1));
+            sample(out, name + "_count", labels, count.sum());
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.gameclub.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按数据源分别调度爬取。每个数据源的检查间隔在 [min-interval, base-interval] 之间自适应：
+ * 数据有变化时间隔减半，尽快再次检查；没有变化时间隔加倍，逐渐回到 base-interval。
+ * 失败时按指数退避重试（从 failure-backoff 开始每次加倍，不超过 max-backoff）。
+ * 每次延迟都加上 ±jitter 比例的随机抖动，避免各数据源、各实例同时请求。
+ * 下一次只在上一次结束后安排，爬取通过 {@link CrawlerService#startCrawlJob(String, String...)} 提交，
+ * 与手动触发的任务同样遵守每个数据源同时只有一个爬取在运行。
+ */
+@Service
+public class CrawlScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(CrawlScheduler.class);
+
+    @Autowired
+    private CrawlerService crawlerService;
+
+    @Value("${gameclub.crawler.schedule.base-interval-ms:86400000}")
+    private long baseIntervalMs;
+
+    @Value("${gameclub.crawler.schedule.min-interval-ms:3600000}")
+    private long minIntervalMs;
+
+    @Value("${gameclub.crawler.schedule.failure-backoff-ms:300000}")
+    private long failureBackoffMs;
+
+    @Value("${gameclub.crawler.schedule.max-backoff-ms:21600000}")
+    private long maxBackoffMs;
+
+    @Value("${gameclub.crawler.schedule.jitter:0.1}")
+    private double jitter;
+
+    private ScheduledExecutorService timer;
+    private final Map<String, SourceSchedule> schedules = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        timer = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("crawl-scheduler-"));
+        for (String source : CrawlerService.SOURCES) {
+            schedules.put(source, new SourceSchedule(source, baseIntervalMs));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * 立即爬取所有数据源（启动时调用），之后各数据源按各自的结果进入调度。
+     */
+    public CrawlJob start(String trigger) {
+        CrawlJob job = crawlerService.startCrawlJob(trigger);
+        for (String source : schedules.keySet()) {
+            follow(source, job);
+        }
+        return job;
+    }
+
+    public List<SourceSchedule> getSchedules() {
+        List<SourceSchedule> result = new ArrayList<>();
+        for (SourceSchedule schedule : schedules.values()) {
+            synchronized (schedule) {
+                result.add(schedule.copy());
+            }
+        }
+        return result;
+    }
+
+    private void run(String source) {
+        CrawlJob job;
+        try {
+            job = crawlerService.startCrawlJob("scheduled", source);
+        } catch (Exception e) {
+            logger.warn("提交 {} 的定时爬取失败", source, e);
+            reschedule(source, null);
+            return;
+        }
+        follow(source, job);
+    }
+
+    // 合并到其他任务时该任务里一定有这个数据源；万一没有，按失败处理，稍后再试
+    private void follow(String source, CrawlJob job) {
+        job.completion().whenComplete((finished, error) -> reschedule(source, job.site(source)));
+    }
+
+    private void reschedule(String source, CrawlJob.SiteProgress progress) {
+        SourceSchedule schedule = schedules.get(source);
+        long delay;
+        synchronized (schedule) {
+            delay = schedule.next(progress);
+            if (schedule.pending != null) {
+                schedule.pending.cancel(false);
+            }
+            try {
+                schedule.pending = timer.schedule(() -> run(source), delay, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                // 关闭应用时调度线程已停止
+                logger.debug("{} 未能安排下一次爬取: {}", source, e.toString());
+                return;
+            }
+        }
+        logger.info("{} 下一次爬取在 {} 秒后（{}）", source, TimeUnit.MILLISECONDS.toSeconds(delay), schedule.lastOutcome);
+    }
+
+    /**
+     * 单个数据源的调度状态，状态接口直接序列化返回。
+     */
+    public class SourceSchedule {
+        private final String source;
+        private long intervalMs;
+        private int consecutiveFailures;
+        private String lastOutcome;
+        private LocalDateTime lastRunAt;
+        private LocalDateTime nextRunAt;
+        private ScheduledFuture<?> pending;
+
+        SourceSchedule(String source, long intervalMs) {
+            this.source = source;
+            this.intervalMs = intervalMs;
+        }
+
+        SourceSchedule copy() {
+            SourceSchedule copy = new SourceSchedule(source, intervalMs);
+            copy.consecutiveFailures = consecutiveFailures;
+            copy.lastOutcome = lastOutcome;
+            copy.lastRunAt = lastRunAt;
+            copy.nextRunAt = nextRunAt;
+            return copy;
+        }
+
+        // 根据本次结果调整间隔，返回到下一次爬取的延迟（已加抖动）
+        long next(CrawlJob.SiteProgress progress) {
+            long delay;
+            lastRunAt = LocalDateTime.now();
+            if (progress != null && CrawlJob.SiteProgress.DONE.equals(progress.getStage())) {
+                consecutiveFailures = 0;
+                lastOutcome = progress.getOutcome();
+                intervalMs = CrawlJob.SiteProgress.CHANGED.equals(lastOutcome)
+                        ? Math.max(minIntervalMs, intervalMs / 2)
+                        : Math.min(baseIntervalMs, intervalMs * 2);
+                delay = intervalMs;
+            } else {
+                consecutiveFailures++;
+                lastOutcome = progress != null ? progress.getStage() : CrawlJob.SiteProgress.FAILED;
+                delay = Math.min(maxBackoffMs, failureBackoffMs << Math.min(consecutiveFailures - 1, 20));
+            }
+            delay = Math.max(1000, Math.round(delay * (1 + (ThreadLocalRandom.current().nextDouble() * 2 - 1) * jitter)));
+            nextRunAt = lastRunAt.plusNanos(TimeUnit.MILLISECONDS.toNanos(delay));
+            return delay;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public long getIntervalMs() {
+            return intervalMs;
+        }
+
+        public int getConsecutiveFailures() {
+            return consecutiveFailures;
+        }
+
+        public String getLastOutcome() {
+            return lastOutcome;
+        }
+
+        public LocalDateTime getLastRunAt() {
+            return lastRunAt;
+        }
+
+        public LocalDateTime getNextRunAt() {
+            return nextRunAt;
+        }
+    }
+}
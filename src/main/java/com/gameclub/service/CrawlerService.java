@@ -1,177 +1,574 @@
 package com.gameclub.service;
 
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.gameclub.entity.CrawlSourceState;
 import com.gameclub.entity.GameData;
+import com.gameclub.entity.ImageMirror;
+import com.gameclub.entity.ImageVariant;
+import com.gameclub.mapper.CrawlSourceStateMapper;
 import com.gameclub.mapper.GameDataMapper;
+import org.jsoup.HttpStatusException;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
+import org.jsoup.select.Evaluator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import java.io.ByteArrayInputStream;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @Service
 public class CrawlerService {
     private static final Logger logger = LoggerFactory.getLogger(CrawlerService.class);
 
+    static final String DELTA = "delta";
+    static final String YJWUJIAN = "yjwujian";
+    static final List<String> SOURCES = Collections.unmodifiableList(Arrays.asList(DELTA, YJWUJIAN));
+
+    static final String DELTA_URL = "https://df.qq.com/index.shtml#part3";
+    static final String YJWUJIAN_URL = "https://www.yjwujian.cn/";
+
+    // 各 extract 方法使用的选择器，进程内只编译一次
+    private static final Evaluator IMG = PageIndex.compile("img");
+    // 根据提供的HTML结构：div.swiper.p4-thumbs .swiper-slide，尝试多种选择器以确保完整覆盖
+    private static final Evaluator DELTA_CHARACTER_SLIDES = PageIndex.compile(
+            "div.swiper.p4-thumbs .swiper-slide, div.p4-thumbs .swiper-slide, .p4-thumbs .swiper-slide");
+    private static final Evaluator DELTA_MAP_NAV_ACTIVE = PageIndex.compile("div.p7_nav a.on");
+    private static final Evaluator DELTA_MAP_NAV = PageIndex.compile("div.p7_nav a");
+    private static final Evaluator DELTA_MAP_SWIPERS = PageIndex.compile(
+            "div.swiper.p7_tab.p7_tab1, div.p7_tab.p7_tab1, .p7_tab1.swiper");
+    private static final Evaluator DELTA_MAP_SWIPERS_FALLBACK = PageIndex.compile(
+            "div.swiper[class*='p7_tab'], .p7_tab.swiper");
+    private static final Evaluator DELTA_MAP_SLIDE_NAMES = PageIndex.compile("div.swiper-slide p");
+    private static final Evaluator DELTA_MAP_IMAGES_FALLBACK = PageIndex.compile(
+            "img[src*='p7-m1'], img[src*='p7'], img[class*='map']");
+    // 根据提供的HTML结构：div.swiper-slide.p5-bq，尝试多种选择器以确保完整覆盖所有武器
+    private static final Evaluator DELTA_WEAPON_SLIDES = PageIndex.compile(
+            "div.swiper-slide.p5-bq, " +
+            ".p5-bq.swiper-slide, " +
+            ".swiper-slide[class*='p5-bq'], " +
+            "div[class*='p5-bq'][class*='swiper-slide'], " +
+            ".swiper .p5-bq, " +
+            "[class*='p5'][class*='swiper-slide']");
+    private static final Evaluator YJWUJIAN_HERO_IMAGES = PageIndex.compile(
+            "img[alt*='英雄'], img[alt*='角色'], a[href*='hero'] img, .hero img, [class*='hero'] img");
+    private static final Evaluator YJWUJIAN_MAP_IMAGES = PageIndex.compile(
+            "img[alt*='地图'], a[href*='map'] img, .map img, [class*='map'] img");
+    private static final Evaluator YJWUJIAN_WEAPON_IMAGES = PageIndex.compile(
+            "img[alt*='武器'], a[href*='weapon'] img, .weapon img, [class*='weapon'] img");
+
+    // 页面大小上限
+    private static final int MAX_PAGE_BYTES = 8 * 1024 * 1024;
+
+    // 最近的任务保留数量，用于按 ID 查询状态
+    private static final int RECENT_JOBS = 20;
+
     @Autowired
     private GameDataMapper gameDataMapper;
 
-    // 每三个月执行一次（90天 = 7776000000毫秒）
-    @Scheduled(fixedRate = 7776000000L)
-    public void scheduledCrawl() {
-        logger.info("开始定时爬取游戏数据...");
-        crawlDeltaForce();
-        crawlYjwujian();
+    @Autowired
+    private GameDataCache gameDataCache;
+
+    @Autowired
+    private CrawlSourceStateMapper crawlSourceStateMapper;
+
+    @Autowired
+    private GameDataWriter gameDataWriter;
+
+    @Autowired
+    private GameDataVersionService gameDataVersionService;
+
+    @Autowired
+    private ImageMirrorService imageMirrorService;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PageFetcher pageFetcher;
+
+    @Autowired
+    private CrawlMetrics crawlMetrics;
+
+    @Value("${gameclub.crawler.site-parallelism:2}")
+    private int siteParallelism;
+
+    @Value("${gameclub.crawler.site-timeout-ms:60000}")
+    private long siteTimeoutMs;
+
+    private ExecutorService jobExecutor;
+    private ExecutorService siteExecutor;
+    private TransactionTemplate transactionTemplate;
+
+    // SQLite 只允许一个写入者，各站点并行抓取解析，但写库串行进行；与手工回滚共用
+    @Autowired
+    private DataWriteLock persistLock;
+
+    // 数据源 -> 正在爬取它的任务。站点任务真正结束（而不只是超时）后才移除，同一数据源不会同时爬取两次
+    private final Map<String, CrawlJob> inFlight = new HashMap<>();
+    private volatile CrawlJob latestJob;
+
+    private final Map<String, CrawlJob> recentJobs = Collections.synchronizedMap(
+            new LinkedHashMap<String, CrawlJob>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CrawlJob> eldest) {
+                    return size() > RECENT_JOBS;
+                }
+            });
+
+    @PostConstruct
+    public void init() {
+        // 任务线程只等待站点结果；每个数据源同时最多一个任务，线程数不会超过数据源数
+        jobExecutor = Executors.newCachedThreadPool(new CustomizableThreadFactory("crawl-job-"));
+        siteExecutor = new ThreadPoolExecutor(siteParallelism, siteParallelism, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(16), new CustomizableThreadFactory("crawl-site-"));
+        transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
-    public void triggerCrawl() {
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        siteExecutor.shutdownNow();
+    }
+
+    public CrawlJob triggerCrawl() {
         logger.info("手动触发爬取游戏数据...");
-        crawlDeltaForce();
-        crawlYjwujian();
+        return startCrawlJob("manual");
+    }
+
+    /**
+     * 爬取所有数据源，见 {@link #startCrawlJob(String, String...)}。
+     */
+    public CrawlJob startCrawlJob(String trigger) {
+        return startCrawlJob(trigger, SOURCES.toArray(new String[0]));
+    }
+
+    /**
+     * 启动后台爬取任务并立即返回。正在被其他任务爬取的数据源不会重复爬取：新任务只包含空闲的数据源，
+     * 全部都在爬取中时直接返回第一个数据源所在的任务。
+     */
+    public CrawlJob startCrawlJob(String trigger, String... sources) {
+        for (String source : sources) {
+            if (!SOURCES.contains(source)) {
+                throw new IllegalArgumentException("未知的数据源: " + source);
+            }
+        }
+        CrawlJob job;
+        synchronized (inFlight) {
+            List<String> idle = new ArrayList<>();
+            for (String source : sources) {
+                if (!inFlight.containsKey(source) && !idle.contains(source)) {
+                    idle.add(source);
+                }
+            }
+            if (idle.isEmpty()) {
+                CrawlJob running = inFlight.get(sources[0]);
+                logger.info("{} 已在任务 {} 中爬取，合并到该任务", sources[0], running.getId());
+                return running;
+            }
+            job = new CrawlJob(trigger, idle.toArray(new String[0]));
+            for (String source : idle) {
+                inFlight.put(source, job);
+            }
+        }
+        recentJobs.put(job.getId(), job);
+        latestJob = job;
+        try {
+            jobExecutor.execute(() -> runJob(job));
+        } catch (RejectedExecutionException e) {
+            for (CrawlJob.SiteProgress progress : job.getSites()) {
+                progress.failed("任务被拒绝");
+                release(progress.getSite(), job);
+            }
+            job.finish();
+            throw e;
+        }
+        return job;
+    }
+
+    public CrawlJob getJob(String jobId) {
+        return recentJobs.get(jobId);
+    }
+
+    public CrawlJob getLatestJob() {
+        return latestJob;
     }
 
-    @Transactional
-    public void crawlDeltaForce() {
+    private void runJob(CrawlJob job) {
+        logger.info("爬取任务 {} 开始", job.getId());
+        List<CrawlJob.SiteProgress> sites = job.getSites();
+        List<Future<?>> futures = new ArrayList<>();
+        for (CrawlJob.SiteProgress progress : sites) {
+            futures.add(submitSite(job, progress));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(siteTimeoutMs);
+        for (int i = 0; i < sites.size(); i++) {
+            awaitSite(sites.get(i), futures.get(i), deadline);
+        }
+
+        job.finish();
+        logger.info("爬取任务 {} 结束，状态: {}，耗时 {}ms", job.getId(), job.getStatus(), job.getDurationMs());
+    }
+
+    private Future<?> submitSite(CrawlJob job, CrawlJob.SiteProgress progress) {
+        String source = progress.getSite();
+        Runnable crawl = DELTA.equals(source) ? () -> crawlDeltaForce(progress) : () -> crawlYjwujian(progress);
+        try {
+            return siteExecutor.submit(() -> {
+                try {
+                    crawl.run();
+                } finally {
+                    release(source, job);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            progress.failed("站点任务被拒绝");
+            release(source, job);
+            return null;
+        }
+    }
+
+    private void release(String source, CrawlJob job) {
+        synchronized (inFlight) {
+            inFlight.remove(source, job);
+        }
+    }
+
+    // 各站点同时开始，共用同一个截止时间
+    private void awaitSite(CrawlJob.SiteProgress progress, Future<?> future, long deadline) {
+        if (future == null) {
+            return;
+        }
         try {
-            logger.info("开始爬取三角洲数据...");
-            String url = "https://df.qq.com/index.shtml#part3";
-            Document doc = Jsoup.connect(url)
-                    .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36")
-                    .timeout(10000)
-                    .get();
-
-            // 删除旧数据
-            QueryWrapper<GameData> deleteWrapper = new QueryWrapper<>();
-            deleteWrapper.eq("game_type", "delta");
-            gameDataMapper.delete(deleteWrapper);
-
-            // 爬取干员数据（包含图片）
-            List<GameDataItem> characters = extractDeltaCharactersWithImages(doc);
-            for (GameDataItem item : characters) {
-                GameData data = new GameData();
-                data.setGameType("delta");
-                data.setDataType("character");
-                data.setName(item.name);
-                data.setImageUrl(item.imageUrl);
-                data.setCreatedAt(LocalDateTime.now());
-                data.setUpdatedAt(LocalDateTime.now());
-                gameDataMapper.insert(data);
-            }
-
-            // 爬取地图数据（只保留烽火地带）
-            List<GameDataItem> maps = extractDeltaMapsWithImages(doc);
-            for (GameDataItem item : maps) {
-                GameData data = new GameData();
-                data.setGameType("delta");
-                data.setDataType("map");
-                data.setName(item.name);
-                data.setImageUrl(item.imageUrl);
-                data.setCreatedAt(LocalDateTime.now());
-                data.setUpdatedAt(LocalDateTime.now());
-                gameDataMapper.insert(data);
-            }
-
-            // 爬取武器数据（包含图片）
-            List<GameDataItem> weapons = extractDeltaWeaponsWithImages(doc);
-            for (GameDataItem item : weapons) {
-                GameData data = new GameData();
-                data.setGameType("delta");
-                data.setDataType("weapon");
-                data.setName(item.name);
-                data.setImageUrl(item.imageUrl);
-                data.setCreatedAt(LocalDateTime.now());
-                data.setUpdatedAt(LocalDateTime.now());
-                gameDataMapper.insert(data);
-            }
-
-            logger.info("三角洲数据爬取完成，共爬取 {} 条数据", 
-                    characters.size() + maps.size() + weapons.size());
+            future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            progress.timedOut(siteTimeoutMs);
+            logger.warn("爬取 {} 超时（{}ms），已取消", progress.getSite(), siteTimeoutMs);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            progress.failed("任务被中断");
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            progress.failed(String.valueOf(e.getCause()));
+        }
+    }
+
+    public CrawlJob crawlDeltaForce() {
+        return startCrawlJob("manual", DELTA);
+    }
+
+    void crawlDeltaForce(CrawlJob.SiteProgress progress) {
+        crawlSite(DELTA, "三角洲", DELTA_URL, this::extractDelta, this::initDefaultDeltaData, progress);
+    }
+
+    public CrawlJob crawlYjwujian() {
+        return startCrawlJob("manual", YJWUJIAN);
+    }
+
+    void crawlYjwujian(CrawlJob.SiteProgress progress) {
+        crawlSite(YJWUJIAN, "永劫无间", YJWUJIAN_URL, this::extractYjwujian, this::initDefaultYjwujianData, progress);
+    }
+
+    Map<String, List<GameDataItem>> extractDelta(Document doc) {
+        PageIndex index = PageIndex.of(doc);
+        Map<String, List<GameDataItem>> extracted = new LinkedHashMap<>();
+        // 爬取干员数据（包含图片）
+        extractTimed(extracted, DELTA, "character", () -> extractDeltaCharactersWithImages(index));
+        // 爬取地图数据（只保留烽火地带）
+        extractTimed(extracted, DELTA, "map", () -> extractDeltaMapsWithImages(index));
+        // 爬取武器数据（包含图片）
+        extractTimed(extracted, DELTA, "weapon", () -> extractDeltaWeaponsWithImages(index));
+        return extracted;
+    }
+
+    Map<String, List<GameDataItem>> extractYjwujian(Document doc) {
+        PageIndex index = PageIndex.of(doc);
+        Map<String, List<GameDataItem>> extracted = new LinkedHashMap<>();
+        // 爬取英雄数据（包含图片）
+        extractTimed(extracted, YJWUJIAN, "hero", () -> extractYjwujianHeroesWithImages(index));
+        // 爬取地图数据（包含图片）
+        extractTimed(extracted, YJWUJIAN, "map", () -> extractYjwujianMapsWithImages(index));
+        // 爬取武器数据（包含图片）
+        extractTimed(extracted, YJWUJIAN, "weapon", () -> extractYjwujianWeaponsWithImages(index));
+        return extracted;
+    }
+
+    private void extractTimed(Map<String, List<GameDataItem>> extracted, String gameType, String category,
+                              Supplier<List<GameDataItem>> extractor) {
+        long start = System.nanoTime();
+        List<GameDataItem> items = extractor.get();
+        crawlMetrics.recordStage(gameType, CrawlMetrics.EXTRACT, category, System.nanoTime() - start);
+        crawlMetrics.recordExtracted(gameType, category, items.size());
+        extracted.put(category, items);
+    }
+
+    /**
+     * 抓取 -> 提取 -> 写库。带上次的 ETag/Last-Modified 发送条件请求，
+     * 页面未修改（304）、页面内容哈希不变或提取结果哈希不变时跳过后续阶段。
+     */
+    private void crawlSite(String gameType, String label, String url,
+                           Function<Document, Map<String, List<GameDataItem>>> extractor,
+                           BooleanSupplier fallback, CrawlJob.SiteProgress progress) {
+        long started = System.nanoTime();
+        try {
+            logger.info("开始爬取{}数据...", label);
+            progress.stage(CrawlJob.SiteProgress.FETCHING);
+            // 表中没有数据时忽略上次的状态，完整执行一遍
+            CrawlSourceState previous = hasGameData(gameType) ? crawlSourceStateMapper.selectById(gameType) : null;
+            Map<String, String> conditional = new HashMap<>();
+            if (previous != null && previous.getEtag() != null) {
+                conditional.put("If-None-Match", previous.getEtag());
+            }
+            if (previous != null && previous.getLastModified() != null) {
+                conditional.put("If-Modified-Since", previous.getLastModified());
+            }
+            long fetchStart = System.nanoTime();
+            FetchResponse response;
+            try {
+                response = pageFetcher.fetch(url, conditional, MAX_PAGE_BYTES);
+            } finally {
+                // 失败（含重试）的耗时也计入，网站变慢或不可用时能从这里看到
+                crawlMetrics.recordStage(gameType, CrawlMetrics.FETCH, null, System.nanoTime() - fetchStart);
+            }
+            crawlMetrics.recordFetched(gameType, "page", response.getBody().length);
+
+            if (response.getStatusCode() == 304 && previous != null) {
+                previous.setCheckedAt(LocalDateTime.now());
+                saveSourceState(previous);
+                logger.info("{}页面未修改（304），跳过解析", label);
+                finishSite(gameType, progress, CrawlJob.SiteProgress.NOT_MODIFIED, 0);
+                return;
+            }
+            if (response.getStatusCode() >= 400) {
+                throw new HttpStatusException("抓取页面失败", response.getStatusCode(), url);
+            }
+
+            byte[] body = response.getBody();
+            CrawlSourceState state = new CrawlSourceState();
+            state.setSource(gameType);
+            state.setUrl(url);
+            state.setEtag(response.header("ETag"));
+            state.setLastModified(response.header("Last-Modified"));
+            state.setBodyHash(Hashes.sha256Hex(body));
+            state.setCheckedAt(LocalDateTime.now());
+            if (previous != null && state.getBodyHash().equals(previous.getBodyHash())) {
+                state.setItemsHash(previous.getItemsHash());
+                state.setChangedAt(previous.getChangedAt());
+                saveSourceState(state);
+                logger.info("{}页面内容未变化，跳过解析", label);
+                finishSite(gameType, progress, CrawlJob.SiteProgress.BODY_UNCHANGED, 0);
+                return;
+            }
+
+            progress.stage(CrawlJob.SiteProgress.EXTRACTING);
+            long parseStart = System.nanoTime();
+            // 响应体已完整读入内存（上限 MAX_PAGE_BYTES）：解析之前要先算哈希判断能否跳过解析，
+            // record 模式要写入 fixture，抓取失败时也要能整体重试，因此不把连接上的流直接交给 jsoup
+            Document doc = Jsoup.parse(new ByteArrayInputStream(body), response.charset(), url);
+            crawlMetrics.recordStage(gameType, CrawlMetrics.PARSE, null, System.nanoTime() - parseStart);
+            Map<String, List<GameDataItem>> extracted = extractor.apply(doc);
+            state.setItemsHash(itemsHash(extracted));
+            if (previous != null && state.getItemsHash().equals(previous.getItemsHash())) {
+                state.setChangedAt(previous.getChangedAt());
+                saveSourceState(state);
+                logger.info("{}提取结果未变化，跳过写库", label);
+                finishSite(gameType, progress, CrawlJob.SiteProgress.ITEMS_UNCHANGED, 0);
+                return;
+            }
+
+            progress.stage(CrawlJob.SiteProgress.PERSISTING);
+            state.setChangedAt(state.getCheckedAt());
+            int count = replaceGameData(gameType, extracted, state);
+            logger.info("{}数据爬取完成，共爬取 {} 条数据", label, count);
+            finishSite(gameType, progress, CrawlJob.SiteProgress.CHANGED, count);
         } catch (Exception e) {
-            logger.error("爬取三角洲数据失败", e);
-            // 如果爬取失败，使用默认数据
-            initDefaultDeltaData();
+            logger.error("爬取{}数据失败", label, e);
+            progress.failed(e.toString());
+            crawlMetrics.recordOutcome(gameType, CrawlJob.SiteProgress.FAILED);
+            // 如果爬取失败且还没有数据，使用默认数据；保留已有数据时不算回退
+            if (fallback.getAsBoolean()) {
+                crawlMetrics.recordFallback(gameType, "site");
+            }
+        } finally {
+            // 304、内容未变化等提前返回的爬取也计入
+            crawlMetrics.recordStage(gameType, CrawlMetrics.TOTAL, null, System.nanoTime() - started);
         }
+        gameDataCache.reloadAfterCommit();
     }
 
-    @Transactional
-    public void crawlYjwujian() {
+    /**
+     * 镜像该游戏引用的图片并生成缩略图后结束站点进度。数据未变化时也会补齐之前未完成的图片，
+     * 有新镜像或缩略图时刷新快照；镜像失败不影响本次爬取结果。
+     */
+    private void finishSite(String gameType, CrawlJob.SiteProgress progress, String outcome, int count)
+            throws InterruptedException {
+        progress.stage(CrawlJob.SiteProgress.MIRRORING);
+        boolean mirrored = false;
+        long mirrorStart = System.nanoTime();
         try {
-            logger.info("开始爬取永劫无间数据...");
-            String url = "https://www.yjwujian.cn/";
-            Document doc = Jsoup.connect(url)
-                    .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36")
-                    .timeout(10000)
-                    .get();
-
-            // 删除旧数据
-            QueryWrapper<GameData> deleteWrapper = new QueryWrapper<>();
-            deleteWrapper.eq("game_type", "yjwujian");
-            gameDataMapper.delete(deleteWrapper);
-
-            // 爬取英雄数据（包含图片）
-            List<GameDataItem> heroes = extractYjwujianHeroesWithImages(doc);
-            for (GameDataItem item : heroes) {
-                GameData data = new GameData();
-                data.setGameType("yjwujian");
-                data.setDataType("hero");
-                data.setName(item.name);
-                data.setImageUrl(item.imageUrl);
-                data.setCreatedAt(LocalDateTime.now());
-                data.setUpdatedAt(LocalDateTime.now());
-                gameDataMapper.insert(data);
-            }
-
-            // 爬取地图数据（包含图片）
-            List<GameDataItem> maps = extractYjwujianMapsWithImages(doc);
-            for (GameDataItem item : maps) {
-                GameData data = new GameData();
-                data.setGameType("yjwujian");
-                data.setDataType("map");
-                data.setName(item.name);
-                data.setImageUrl(item.imageUrl);
-                data.setCreatedAt(LocalDateTime.now());
-                data.setUpdatedAt(LocalDateTime.now());
-                gameDataMapper.insert(data);
-            }
-
-            // 爬取武器数据（包含图片）
-            List<GameDataItem> weapons = extractYjwujianWeaponsWithImages(doc);
-            for (GameDataItem item : weapons) {
-                GameData data = new GameData();
-                data.setGameType("yjwujian");
-                data.setDataType("weapon");
-                data.setName(item.name);
-                data.setImageUrl(item.imageUrl);
-                data.setCreatedAt(LocalDateTime.now());
-                data.setUpdatedAt(LocalDateTime.now());
-                gameDataMapper.insert(data);
-            }
-
-            logger.info("永劫无间数据爬取完成，共爬取 {} 条数据", 
-                    heroes.size() + maps.size() + weapons.size());
+            mirrored = mirrorImages(gameType);
+        } catch (InterruptedException e) {
+            throw e;
         } catch (Exception e) {
-            logger.error("爬取永劫无间数据失败", e);
-            // 如果爬取失败，使用默认数据
-            initDefaultYjwujianData();
+            logger.warn("{} 图片镜像失败", gameType, e);
+        }
+        crawlMetrics.recordStage(gameType, CrawlMetrics.IMAGE, null, System.nanoTime() - mirrorStart);
+        crawlMetrics.recordOutcome(gameType, outcome);
+        if (CrawlJob.SiteProgress.CHANGED.equals(outcome)) {
+            progress.done(count);
+        } else {
+            progress.unchanged(outcome);
+            if (mirrored) {
+                gameDataCache.reload();
+            }
+        }
+    }
+
+    private boolean mirrorImages(String gameType) throws InterruptedException {
+        List<String> urls = new ArrayList<>();
+        for (GameData row : gameDataMapper.findByGameType(gameType)) {
+            urls.add(row.getImageUrl());
         }
+        List<ImageMirror> mirrored = imageMirrorService.download(urls);
+        // 重新校验后内容未变的记录只更新了校验时间，不算新镜像
+        boolean changed = false;
+        long bytes = 0;
+        for (ImageMirror mirror : mirrored) {
+            ImageMirror previous = imageMirrorService.findBySource(mirror.getSourceUrl());
+            if (previous == null || !previous.getHash().equals(mirror.getHash())) {
+                changed = true;
+                bytes += mirror.getSize() != null ? mirror.getSize() : 0;
+            }
+        }
+        crawlMetrics.recordFetched(gameType, "image", bytes);
+        if (!mirrored.isEmpty()) {
+            persistMirrors(mirrored, Collections.emptyList());
+            imageMirrorService.refresh();
+        }
+        // 缩略图以原图哈希为键，只为新的或内容变化过的原图生成
+        List<ImageVariant> variants = imageVariantService.generate(urls);
+        if (!variants.isEmpty()) {
+            persistMirrors(Collections.emptyList(), variants);
+            imageVariantService.refresh();
+        }
+        return changed || !variants.isEmpty();
+    }
+
+    private void persistMirrors(List<ImageMirror> mirrored, List<ImageVariant> variants) throws InterruptedException {
+        persistLock.lockInterruptibly();
+        try {
+            transactionTemplate.execute(status -> {
+                imageMirrorService.save(mirrored);
+                imageVariantService.save(variants);
+                return null;
+            });
+        } finally {
+            persistLock.unlock();
+        }
+    }
+
+    // 提取结果的摘要：按 分类、名称、图片URL 排序后计算，与页面中出现的顺序无关
+    static String itemsHash(Map<String, List<GameDataItem>> extracted) {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, List<GameDataItem>> entry : extracted.entrySet()) {
+            for (GameDataItem item : entry.getValue()) {
+                lines.add(entry.getKey() + "\t" + item.name + "\t" + item.imageUrl);
+            }
+        }
+        Collections.sort(lines);
+        return Hashes.sha256Hex(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 把某个游戏的数据更新为提取结果，并记录对应的数据源状态。抓取和解析在事务之外完成；
+     * 先在一个事务内写入新版本（未生效），再用另一个只有一条 UPDATE 的事务切换生效版本，
+     * 读者在切换前后分别看到完整的旧数据和新数据。state 为 null 时清除数据源状态，下次完整爬取。
+     */
+    private int replaceGameData(String gameType, Map<String, List<GameDataItem>> extracted,
+                                CrawlSourceState state) throws InterruptedException {
+        long start = System.nanoTime();
+        persistLock.lockInterruptibly();
+        try {
+            GameDataWriter.Diff diff = transactionTemplate.execute(status -> gameDataWriter.stage(gameType, extracted));
+            transactionTemplate.execute(status -> {
+                if (!diff.isEmpty()) {
+                    gameDataVersionService.activate(gameType, diff.getVersion());
+                }
+                crawlSourceStateMapper.deleteById(gameType);
+                if (state != null) {
+                    crawlSourceStateMapper.insert(state);
+                }
+                return null;
+            });
+            logger.info("{} 数据写入完成：{}", gameType, diff);
+            // 新版本是整份写入的，没有变化时不写数据行
+            crawlMetrics.recordRowsWritten(gameType, diff.isEmpty() ? 0 : diff.getTotal());
+            return diff.getTotal();
+        } finally {
+            persistLock.unlock();
+            crawlMetrics.recordStage(gameType, CrawlMetrics.PERSIST, null, System.nanoTime() - start);
+        }
+    }
+
+    private void saveSourceState(CrawlSourceState state) throws InterruptedException {
+        persistLock.lockInterruptibly();
+        try {
+            transactionTemplate.execute(status -> {
+                crawlSourceStateMapper.deleteById(state.getSource());
+                crawlSourceStateMapper.insert(state);
+                return null;
+            });
+        } finally {
+            persistLock.unlock();
+        }
+    }
+
+    // 抓取失败时只在该游戏还没有任何数据时写入默认数据，已有数据继续保留
+    private boolean hasGameData(String gameType) {
+        return gameDataMapper.countByGameType(gameType) > 0;
     }
 
     // 辅助类用于存储名称和图片URL
-    private static class GameDataItem {
+    static class GameDataItem {
         String name;
         String imageUrl;
 
@@ -192,18 +589,17 @@ public class CrawlerService {
         }
     }
 
-    // 在文本附近查找图片
-    private String findImageNearText(Document doc, String text) {
+    // 在文本附近查找图片（按自身文本精确匹配）
+    private String findImageNearText(PageIndex index, String text) {
         try {
-            // 查找包含文本的元素
-            Elements textElements = doc.select(String.format("*:containsOwn(%s)", text));
-            for (Element textEl : textElements) {
+            // 查找自身文本为该名称的元素
+            for (Element textEl : index.withOwnText(text)) {
                 // 在父元素中查找图片
                 Element parent = textEl.parent();
                 if (parent != null) {
-                    Elements imgs = parent.select("img");
-                    if (!imgs.isEmpty()) {
-                        String src = imgs.first().attr("src");
+                    Element img = index.firstDescendant(parent, "img");
+                    if (img != null) {
+                        String src = img.attr("src");
                         if (src != null && !src.isEmpty()) {
                             if (!src.startsWith("http")) {
                                 URL baseUrl = new URL("https://df.qq.com");
@@ -215,9 +611,9 @@ public class CrawlerService {
                     // 也检查兄弟元素
                     Element nextSibling = textEl.nextElementSibling();
                     if (nextSibling != null) {
-                        Elements siblingImgs = nextSibling.select("img");
-                        if (!siblingImgs.isEmpty()) {
-                            String src = siblingImgs.first().attr("src");
+                        Element siblingImg = nextSibling.is(IMG) ? nextSibling : index.firstDescendant(nextSibling, "img");
+                        if (siblingImg != null) {
+                            String src = siblingImg.attr("src");
                             if (src != null && !src.isEmpty()) {
                                 if (!src.startsWith("http")) {
                                     URL baseUrl = new URL("https://df.qq.com");
@@ -235,7 +631,7 @@ public class CrawlerService {
         return null;
     }
 
-    private List<GameDataItem> extractDeltaCharactersWithImages(Document doc) {
+    List<GameDataItem> extractDeltaCharactersWithImages(PageIndex index) {
         List<GameDataItem> characters = new ArrayList<>();
         Set<String> seenNames = new HashSet<>(); // 用于去重
         Set<String> seenUrls = new HashSet<>(); // 用于去重图片URL
@@ -246,7 +642,7 @@ public class CrawlerService {
             // 根据提供的HTML结构：div.swiper.p4-thumbs .swiper-slide
             // 每个slide包含：<img src="..."> 和 <p>名称</p>
             // 尝试多种选择器以确保完整覆盖
-            Elements slides = doc.select("div.swiper.p4-thumbs .swiper-slide, div.p4-thumbs .swiper-slide, .p4-thumbs .swiper-slide");
+            List<Element> slides = PageIndex.filter(index.withClass("swiper-slide"), DELTA_CHARACTER_SLIDES);
             
             logger.debug("找到 {} 个干员slide元素", slides.size());
             
@@ -257,16 +653,15 @@ public class CrawlerService {
                 }
                 
                 // 查找图片
-                Elements imgs = slide.select("img");
-                if (!imgs.isEmpty()) {
-                    Element img = imgs.first();
+                Element img = index.firstDescendant(slide, "img");
+                if (img != null) {
                     String src = img.attr("src");
                     
                     // 查找名称（在p标签中）
-                    Elements nameElements = slide.select("p");
+                    Element nameElement = index.firstDescendant(slide, "p");
                     String name = null;
-                    if (!nameElements.isEmpty()) {
-                        name = nameElements.first().text().trim();
+                    if (nameElement != null) {
+                        name = nameElement.text().trim();
                         // 跳过空的slide
                         if (name.isEmpty() || name.equals(" ") || name.equals("&nbsp;")) {
                             continue;
@@ -305,6 +700,7 @@ public class CrawlerService {
             // 如果仍然没有提取到数据，使用默认的兵种数据
             if (characters.isEmpty()) {
                 logger.warn("未能从网页提取干员数据，使用默认兵种数据");
+                crawlMetrics.recordFallback(DELTA, "character");
                 characters.add(new GameDataItem("突击兵", createPlaceholderUrl("突击兵")));
                 characters.add(new GameDataItem("医疗兵", createPlaceholderUrl("医疗兵")));
                 characters.add(new GameDataItem("工程兵", createPlaceholderUrl("工程兵")));
@@ -314,6 +710,7 @@ public class CrawlerService {
             }
         } catch (Exception e) {
             logger.error("提取干员数据失败", e);
+            crawlMetrics.recordFallback(DELTA, "character");
             // 使用默认数据
             characters.add(new GameDataItem("突击兵", createPlaceholderUrl("突击兵")));
             characters.add(new GameDataItem("医疗兵", createPlaceholderUrl("医疗兵")));
@@ -323,14 +720,14 @@ public class CrawlerService {
         return characters;
     }
 
-    private List<GameDataItem> extractDeltaMapsWithImages(Document doc) {
+    List<GameDataItem> extractDeltaMapsWithImages(PageIndex index) {
         List<GameDataItem> maps = new ArrayList<>();
         Set<String> seenNames = new HashSet<>(); // 用于去重
         try {
             logger.info("开始提取烽火地带地图信息...");
             
             // 1. 查找"烽火地带"被激活时的状态（class="on"）
-            Elements navLinks = doc.select("div.p7_nav a.on");
+            List<Element> navLinks = PageIndex.filter(index.withClass("on"), DELTA_MAP_NAV_ACTIVE);
             boolean isFenghuoActive = false;
             for (Element link : navLinks) {
                 String linkText = link.text().trim();
@@ -342,7 +739,7 @@ public class CrawlerService {
             
             // 如果"烽火地带"未激活，尝试查找所有导航链接，看是否有"烽火地带"
             if (!isFenghuoActive) {
-                Elements allNavLinks = doc.select("div.p7_nav a");
+                List<Element> allNavLinks = PageIndex.filter(index.tag("a"), DELTA_MAP_NAV);
                 for (Element link : allNavLinks) {
                     String linkText = link.text().trim();
                     if ("烽火地带".equals(linkText)) {
@@ -355,36 +752,38 @@ public class CrawlerService {
             
             // 2. 查找对应的swiper组件（class包含p7_tab和p7_tab1）
             // 尝试多种选择器以确保找到正确的swiper
-            Elements swipers = doc.select("div.swiper.p7_tab.p7_tab1, div.p7_tab.p7_tab1, .p7_tab1.swiper");
+            List<Element> swipers = PageIndex.filter(index.withClass("p7_tab1"), DELTA_MAP_SWIPERS);
             if (swipers.isEmpty()) {
                 // 如果找不到，尝试查找所有包含p7_tab的swiper
-                swipers = doc.select("div.swiper[class*='p7_tab'], .p7_tab.swiper");
+                swipers = PageIndex.filter(index.withClass("swiper"), DELTA_MAP_SWIPERS_FALLBACK);
             }
+            Set<Element> swiperSet = Collections.newSetFromMap(new IdentityHashMap<>());
+            swiperSet.addAll(swipers);
             
             // 3. 提取swiper中所有地图名称
             List<String> mapNames = new ArrayList<>();
-            for (Element swiper : swipers) {
-                // 查找所有swiper-slide中的p标签文本
-                Elements slides = swiper.select("div.swiper-slide p");
-                for (Element slide : slides) {
-                    String mapName = slide.text().trim();
-                    if (mapName != null && !mapName.isEmpty() && !mapName.equals(" ") && !mapName.equals("&nbsp;")) {
-                        // 跳过重复的地图名称
-                        if (!seenNames.contains(mapName)) {
-                            mapNames.add(mapName);
-                            seenNames.add(mapName);
-                            logger.debug("找到地图名称: {}", mapName);
-                        }
+            // 查找所有swiper-slide中的p标签文本
+            for (Element slide : PageIndex.filter(index.tag("p"), DELTA_MAP_SLIDE_NAMES)) {
+                if (!PageIndex.hasAncestorIn(slide, swiperSet)) {
+                    continue;
+                }
+                String mapName = slide.text().trim();
+                if (mapName != null && !mapName.isEmpty() && !mapName.equals(" ") && !mapName.equals("&nbsp;")) {
+                    // 跳过重复的地图名称
+                    if (!seenNames.contains(mapName)) {
+                        mapNames.add(mapName);
+                        seenNames.add(mapName);
+                        logger.debug("找到地图名称: {}", mapName);
                     }
                 }
             }
             
             // 4. 提取map_bg图片的URL
             String imageUrl = null;
-            Elements mapBgImages = doc.select("img.map_bg");
+            List<Element> mapBgImages = PageIndex.filter(index.withClass("map_bg"), IMG);
             if (!mapBgImages.isEmpty()) {
                 // 优先使用data-pc-src，如果没有则使用src
-                Element img = mapBgImages.first();
+                Element img = mapBgImages.get(0);
                 imageUrl = img.attr("data-pc-src");
                 if (imageUrl == null || imageUrl.isEmpty()) {
                     imageUrl = img.attr("src");
@@ -396,9 +795,9 @@ public class CrawlerService {
             
             // 如果没找到map_bg，尝试查找其他相关图片
             if (imageUrl == null || imageUrl.isEmpty()) {
-                Elements fallbackImages = doc.select("img[src*='p7-m1'], img[src*='p7'], img[class*='map']");
+                List<Element> fallbackImages = PageIndex.filter(index.tag("img"), DELTA_MAP_IMAGES_FALLBACK);
                 if (!fallbackImages.isEmpty()) {
-                    Element img = fallbackImages.first();
+                    Element img = fallbackImages.get(0);
                     imageUrl = img.attr("data-pc-src");
                     if (imageUrl == null || imageUrl.isEmpty()) {
                         imageUrl = img.attr("src");
@@ -440,6 +839,7 @@ public class CrawlerService {
             } else {
                 // 如果没有找到地图名称，使用默认数据
                 logger.warn("未能从网页提取地图名称，使用默认数据");
+                crawlMetrics.recordFallback(DELTA, "map");
                 if (imageUrl == null || imageUrl.isEmpty()) {
                     imageUrl = createPlaceholderUrl("烽火地带");
                 }
@@ -447,12 +847,13 @@ public class CrawlerService {
             }
         } catch (Exception e) {
             logger.error("提取地图数据失败", e);
+            crawlMetrics.recordFallback(DELTA, "map");
             maps.add(new GameDataItem("烽火地带", createPlaceholderUrl("烽火地带")));
         }
         return maps;
     }
 
-    private List<GameDataItem> extractDeltaWeaponsWithImages(Document doc) {
+    List<GameDataItem> extractDeltaWeaponsWithImages(PageIndex index) {
         List<GameDataItem> weapons = new ArrayList<>();
         Set<String> seenNames = new HashSet<>(); // 用于去重
         Set<String> seenUrls = new HashSet<>(); // 用于去重图片URL
@@ -463,14 +864,7 @@ public class CrawlerService {
             // 根据提供的HTML结构：div.swiper-slide.p5-bq
             // 每个slide包含：<img src="..."> 和 <p>武器名称</p>
             // 尝试多种选择器以确保完整覆盖所有武器
-            Elements slides = doc.select(
-                "div.swiper-slide.p5-bq, " +
-                ".p5-bq.swiper-slide, " +
-                ".swiper-slide[class*='p5-bq'], " +
-                "div[class*='p5-bq'][class*='swiper-slide'], " +
-                ".swiper .p5-bq, " +
-                "[class*='p5'][class*='swiper-slide']"
-            );
+            List<Element> slides = PageIndex.filter(index.classed(), DELTA_WEAPON_SLIDES);
             
             logger.debug("找到 {} 个武器slide元素", slides.size());
             
@@ -478,13 +872,11 @@ public class CrawlerService {
             if (slides.isEmpty()) {
                 logger.debug("主要选择器未找到武器，尝试更宽泛的选择器");
                 // 查找所有包含p5相关的slide，且包含img和p标签的
-                Elements allSlides = doc.select(".swiper-slide");
-                for (Element slide : allSlides) {
-                    Elements imgs = slide.select("img");
-                    Elements ps = slide.select("p");
+                for (Element slide : index.withClass("swiper-slide")) {
+                    Element img = index.firstDescendant(slide, "img");
                     // 如果这个slide包含图片和p标签，且图片src包含p5相关路径
-                    if (!imgs.isEmpty() && !ps.isEmpty()) {
-                        String src = imgs.first().attr("src");
+                    if (img != null && index.firstDescendant(slide, "p") != null) {
+                        String src = img.attr("src");
                         if (src != null && (src.contains("p5") || src.contains("/p5_"))) {
                             slides.add(slide);
                         }
@@ -495,16 +887,15 @@ public class CrawlerService {
             
             for (Element slide : slides) {
                 // 查找图片
-                Elements imgs = slide.select("img");
-                if (!imgs.isEmpty()) {
-                    Element img = imgs.first();
+                Element img = index.firstDescendant(slide, "img");
+                if (img != null) {
                     String src = img.attr("src");
                     
                     // 查找名称（在p标签中）
-                    Elements nameElements = slide.select("p");
+                    Element nameElement = index.firstDescendant(slide, "p");
                     String name = null;
-                    if (!nameElements.isEmpty()) {
-                        name = nameElements.first().text().trim();
+                    if (nameElement != null) {
+                        name = nameElement.text().trim();
                         // 跳过空的slide或只包含空格的slide
                         if (name.isEmpty() || name.equals(" ") || name.equals("&nbsp;")) {
                             continue;
@@ -543,6 +934,7 @@ public class CrawlerService {
             // 如果没有提取到数据，使用默认数据
             if (weapons.isEmpty()) {
                 logger.warn("未能从网页提取武器数据，使用默认数据");
+                crawlMetrics.recordFallback(DELTA, "weapon");
                 weapons.add(new GameDataItem("M4A1", createPlaceholderUrl("M4A1")));
                 weapons.add(new GameDataItem("AK47", createPlaceholderUrl("AK47")));
                 weapons.add(new GameDataItem("狙击步枪", createPlaceholderUrl("狙击步枪")));
@@ -552,6 +944,7 @@ public class CrawlerService {
             }
         } catch (Exception e) {
             logger.error("提取武器数据失败", e);
+            crawlMetrics.recordFallback(DELTA, "weapon");
             weapons.add(new GameDataItem("M4A1", createPlaceholderUrl("M4A1")));
             weapons.add(new GameDataItem("AK47", createPlaceholderUrl("AK47")));
             weapons.add(new GameDataItem("狙击步枪", createPlaceholderUrl("狙击步枪")));
@@ -560,11 +953,11 @@ public class CrawlerService {
         return weapons;
     }
 
-    private List<GameDataItem> extractYjwujianHeroesWithImages(Document doc) {
+    List<GameDataItem> extractYjwujianHeroesWithImages(PageIndex index) {
         List<GameDataItem> heroes = new ArrayList<>();
         try {
             // 根据永劫无间官网实际结构提取英雄名称和图片
-            Elements heroElements = doc.select("img[alt*='英雄'], img[alt*='角色'], a[href*='hero'] img, .hero img, [class*='hero'] img");
+            List<Element> heroElements = PageIndex.filter(index.tag("img"), YJWUJIAN_HERO_IMAGES);
             
             for (Element imgElement : heroElements) {
                 String name = imgElement.attr("alt");
@@ -595,6 +988,7 @@ public class CrawlerService {
             
             // 如果提取失败，使用默认数据
             if (heroes.isEmpty()) {
+                crawlMetrics.recordFallback(YJWUJIAN, "hero");
                 String[] defaultHeroes = {"宁红夜", "特木尔", "迦南", "季沧海", "天海", "胡桃", "妖刀姬", "崔三娘"};
                 for (String hero : defaultHeroes) {
                     heroes.add(new GameDataItem(hero, createPlaceholderUrl(hero)));
@@ -602,6 +996,7 @@ public class CrawlerService {
             }
         } catch (Exception e) {
             logger.warn("提取英雄数据失败，使用默认数据", e);
+            crawlMetrics.recordFallback(YJWUJIAN, "hero");
             String[] defaultHeroes = {"宁红夜", "特木尔", "迦南"};
             for (String hero : defaultHeroes) {
                 heroes.add(new GameDataItem(hero, createPlaceholderUrl(hero)));
@@ -610,10 +1005,10 @@ public class CrawlerService {
         return heroes;
     }
 
-    private List<GameDataItem> extractYjwujianMapsWithImages(Document doc) {
+    List<GameDataItem> extractYjwujianMapsWithImages(PageIndex index) {
         List<GameDataItem> maps = new ArrayList<>();
         try {
-            Elements mapElements = doc.select("img[alt*='地图'], a[href*='map'] img, .map img, [class*='map'] img");
+            List<Element> mapElements = PageIndex.filter(index.tag("img"), YJWUJIAN_MAP_IMAGES);
             
             for (Element imgElement : mapElements) {
                 String name = imgElement.attr("alt");
@@ -641,6 +1036,7 @@ public class CrawlerService {
             }
             
             if (maps.isEmpty()) {
+                crawlMetrics.recordFallback(YJWUJIAN, "map");
                 String[] defaultMaps = {"聚窟洲", "火罗国", "混沌神狱", "龙隐洞天"};
                 for (String map : defaultMaps) {
                     maps.add(new GameDataItem(map, createPlaceholderUrl(map)));
@@ -648,6 +1044,7 @@ public class CrawlerService {
             }
         } catch (Exception e) {
             logger.warn("提取地图数据失败，使用默认数据", e);
+            crawlMetrics.recordFallback(YJWUJIAN, "map");
             String[] defaultMaps = {"聚窟洲", "火罗国"};
             for (String map : defaultMaps) {
                 maps.add(new GameDataItem(map, createPlaceholderUrl(map)));
@@ -656,10 +1053,10 @@ public class CrawlerService {
         return maps;
     }
 
-    private List<GameDataItem> extractYjwujianWeaponsWithImages(Document doc) {
+    List<GameDataItem> extractYjwujianWeaponsWithImages(PageIndex index) {
         List<GameDataItem> weapons = new ArrayList<>();
         try {
-            Elements weaponElements = doc.select("img[alt*='武器'], a[href*='weapon'] img, .weapon img, [class*='weapon'] img");
+            List<Element> weaponElements = PageIndex.filter(index.tag("img"), YJWUJIAN_WEAPON_IMAGES);
             
             for (Element imgElement : weaponElements) {
                 String name = imgElement.attr("alt");
@@ -688,6 +1085,7 @@ public class CrawlerService {
             
             // 如果提取失败，使用默认数据
             if (weapons.isEmpty()) {
+                crawlMetrics.recordFallback(YJWUJIAN, "weapon");
                 String[] defaultWeapons = {"长剑", "太刀", "阔刀", "枪", "双节棍", "匕首", "双刀", "双戟", "扇", "横刀", 
                                           "斩马刀", "棍", "链剑", "拳刃", "弓", "连弩", "鸟铳", "火炮", "喷火筒", "五眼铳", 
                                           "一窝蜂", "万刃轮"};
@@ -697,6 +1095,7 @@ public class CrawlerService {
             }
         } catch (Exception e) {
             logger.warn("提取武器数据失败，使用默认数据", e);
+            crawlMetrics.recordFallback(YJWUJIAN, "weapon");
             String[] defaultWeapons = {"长剑", "太刀", "阔刀"};
             for (String weapon : defaultWeapons) {
                 weapons.add(new GameDataItem(weapon, createPlaceholderUrl(weapon)));
@@ -705,88 +1104,63 @@ public class CrawlerService {
         return weapons;
     }
 
-    private void initDefaultDeltaData() {
-        logger.info("初始化三角洲默认数据...");
-        
-        // 默认干员（兵种）
-        String[] characters = {"突击兵", "医疗兵", "工程兵", "支援兵"};
-        for (String character : characters) {
-            GameData data = new GameData();
-            data.setGameType("delta");
-            data.setDataType("character");
-            data.setName(character);
-            data.setImageUrl(createPlaceholderUrl(character));
-            data.setCreatedAt(LocalDateTime.now());
-            data.setUpdatedAt(LocalDateTime.now());
-            gameDataMapper.insert(data);
+    /**
+     * 表中没有三角洲数据时写入默认数据，返回是否写入；已有数据时保留。
+     */
+    private boolean initDefaultDeltaData() {
+        if (hasGameData(DELTA)) {
+            logger.info("保留已有的三角洲数据");
+            return false;
         }
+        logger.info("初始化三角洲默认数据...");
 
+        Map<String, List<GameDataItem>> defaults = new LinkedHashMap<>();
+        // 默认干员（兵种）
+        defaults.put("character", placeholderItems("突击兵", "医疗兵", "工程兵", "支援兵"));
         // 只保留烽火地带地图
-        GameData mapData = new GameData();
-        mapData.setGameType("delta");
-        mapData.setDataType("map");
-        mapData.setName("烽火地带");
-        mapData.setImageUrl(createPlaceholderUrl("烽火地带"));
-        mapData.setCreatedAt(LocalDateTime.now());
-        mapData.setUpdatedAt(LocalDateTime.now());
-        gameDataMapper.insert(mapData);
-
+        defaults.put("map", placeholderItems("烽火地带"));
         // 默认武器
-        String[] weapons = {"M4A1", "AK47", "狙击步枪", "霰弹枪"};
-        for (String weapon : weapons) {
-            GameData data = new GameData();
-            data.setGameType("delta");
-            data.setDataType("weapon");
-            data.setName(weapon);
-            data.setImageUrl(createPlaceholderUrl(weapon));
-            data.setCreatedAt(LocalDateTime.now());
-            data.setUpdatedAt(LocalDateTime.now());
-            gameDataMapper.insert(data);
-        }
+        defaults.put("weapon", placeholderItems("M4A1", "AK47", "狙击步枪", "霰弹枪"));
+        return persistDefaults(DELTA, defaults);
     }
 
-    private void initDefaultYjwujianData() {
-        logger.info("初始化永劫无间默认数据...");
-        
-        // 默认英雄
-        String[] heroes = {"宁红夜", "特木尔", "迦南", "季沧海", "天海", "胡桃", "妖刀姬", "崔三娘", "无尘", "岳山"};
-        for (String hero : heroes) {
-            GameData data = new GameData();
-            data.setGameType("yjwujian");
-            data.setDataType("hero");
-            data.setName(hero);
-            data.setImageUrl(createPlaceholderUrl(hero));
-            data.setCreatedAt(LocalDateTime.now());
-            data.setUpdatedAt(LocalDateTime.now());
-            gameDataMapper.insert(data);
+    /**
+     * 与 initDefaultDeltaData 相同，用于永劫无间。
+     */
+    private boolean initDefaultYjwujianData() {
+        if (hasGameData(YJWUJIAN)) {
+            logger.info("保留已有的永劫无间数据");
+            return false;
         }
+        logger.info("初始化永劫无间默认数据...");
 
+        Map<String, List<GameDataItem>> defaults = new LinkedHashMap<>();
+        // 默认英雄
+        defaults.put("hero", placeholderItems("宁红夜", "特木尔", "迦南", "季沧海", "天海", "胡桃", "妖刀姬", "崔三娘", "无尘", "岳山"));
         // 默认地图
-        String[] maps = {"聚窟洲", "火罗国", "混沌神狱", "龙隐洞天"};
-        for (String map : maps) {
-            GameData data = new GameData();
-            data.setGameType("yjwujian");
-            data.setDataType("map");
-            data.setName(map);
-            data.setImageUrl(createPlaceholderUrl(map));
-            data.setCreatedAt(LocalDateTime.now());
-            data.setUpdatedAt(LocalDateTime.now());
-            gameDataMapper.insert(data);
+        defaults.put("map", placeholderItems("聚窟洲", "火罗国", "混沌神狱", "龙隐洞天"));
+        // 默认武器
+        defaults.put("weapon", placeholderItems("长剑", "太刀", "阔刀", "枪", "双节棍", "匕首", "双刀", "双戟", "扇", "横刀",
+                "斩马刀", "棍", "链剑", "拳刃", "弓", "连弩", "鸟铳", "火炮", "喷火筒", "五眼铳",
+                "一窝蜂", "万刃轮"));
+        return persistDefaults(YJWUJIAN, defaults);
+    }
+
+    private List<GameDataItem> placeholderItems(String... names) {
+        List<GameDataItem> items = new ArrayList<>();
+        for (String name : names) {
+            items.add(new GameDataItem(name, createPlaceholderUrl(name)));
         }
+        return items;
+    }
 
-        // 默认武器
-        String[] weapons = {"长剑", "太刀", "阔刀", "枪", "双节棍", "匕首", "双刀", "双戟", "扇", "横刀", 
-                           "斩马刀", "棍", "链剑", "拳刃", "弓", "连弩", "鸟铳", "火炮", "喷火筒", "五眼铳", 
-                           "一窝蜂", "万刃轮"};
-        for (String weapon : weapons) {
-            GameData data = new GameData();
-            data.setGameType("yjwujian");
-            data.setDataType("weapon");
-            data.setName(weapon);
-            data.setImageUrl(createPlaceholderUrl(weapon));
-            data.setCreatedAt(LocalDateTime.now());
-            data.setUpdatedAt(LocalDateTime.now());
-            gameDataMapper.insert(data);
+    private boolean persistDefaults(String gameType, Map<String, List<GameDataItem>> defaults) {
+        try {
+            replaceGameData(gameType, defaults, null);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         }
     }
 }
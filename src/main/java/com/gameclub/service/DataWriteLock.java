@@ -0,0 +1,14 @@
+package com.gameclub.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * game_data 及爬虫相关表（版本、数据源状态、图片镜像）的写入锁。SQLite 只允许一个写入者，
+ * 爬虫各站点的写库和手工回滚都在这把锁内进行：爬虫写入新版本（stage）到切换生效版本（activate）之间
+ * 不会插入回滚，新版本总是以切换时的生效版本为基础，回滚也不会被正在进行的写入悄悄覆盖。
+ */
+@Component
+public class DataWriteLock extends ReentrantLock {
+}
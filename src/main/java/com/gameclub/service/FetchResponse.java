@@ -0,0 +1,80 @@
+package com.gameclub.service;
+
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 一次 HTTP 抓取的原始结果：状态码、响应头（名称不区分大小写）和未解码的响应体。
+ */
+public final class FetchResponse {
+    private final String url;
+    private final int statusCode;
+    private final Map<String, String> headers;
+    private final byte[] body;
+
+    public FetchResponse(String url, int statusCode, Map<String, String> headers, byte[] body) {
+        this.url = url;
+        this.statusCode = statusCode;
+        Map<String, String> copy = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        copy.putAll(headers);
+        this.headers = Collections.unmodifiableMap(copy);
+        this.body = body != null ? body : new byte[0];
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public String header(String name) {
+        return headers.get(name);
+    }
+
+    /**
+     * 响应体原始字节，调用方不得修改。
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    public String getContentType() {
+        return header("Content-Type");
+    }
+
+    /**
+     * Content-Type 中声明的字符集，未声明或无法识别时返回 null，由解析器自行判断。
+     */
+    public String charset() {
+        String contentType = getContentType();
+        if (contentType == null) {
+            return null;
+        }
+        for (String part : contentType.split(";")) {
+            String value = part.trim();
+            if (value.regionMatches(true, 0, "charset=", 0, 8)) {
+                String name = value.substring(8).replace("\"", "").trim();
+                try {
+                    return Charset.isSupported(name) ? name : null;
+                } catch (IllegalCharsetNameException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return statusCode + " " + url + " (" + body.length + " bytes)";
+    }
+}
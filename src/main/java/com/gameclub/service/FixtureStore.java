@@ -0,0 +1,96 @@
+package com.gameclub.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 抓取结果的磁盘存放格式。每个 URL 对应两个文件：
+ * {host}/{sha256(url) 前 16 位}.headers 为文本，第一行是 URL，第二行是状态码，其后每行一个 "名称: 值"；
+ * 同名的 .body 为原始响应体。
+ */
+public final class FixtureStore {
+    private final Path root;
+
+    public FixtureStore(Path root) {
+        this.root = root;
+    }
+
+    public void save(FetchResponse response) throws IOException {
+        Path headers = headersPath(response.getUrl());
+        Files.createDirectories(headers.getParent());
+        StringBuilder text = new StringBuilder();
+        text.append(response.getUrl()).append('\n');
+        text.append(response.getStatusCode()).append('\n');
+        for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+            text.append(header.getKey()).append(": ").append(header.getValue()).append('\n');
+        }
+        // 先写响应体，.headers 存在即表示这条记录完整
+        write(bodyPath(response.getUrl()), response.getBody());
+        write(headers, text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 读取 URL 对应的记录，不存在时返回 null。
+     */
+    public FetchResponse load(String url) throws IOException {
+        Path headersPath = headersPath(url);
+        if (!Files.isRegularFile(headersPath)) {
+            return null;
+        }
+        String text = new String(Files.readAllBytes(headersPath), StandardCharsets.UTF_8);
+        try (BufferedReader reader = new BufferedReader(new StringReader(text))) {
+            reader.readLine(); // URL，只供人工查看
+            int status = Integer.parseInt(reader.readLine().trim());
+            Map<String, String> headers = new LinkedHashMap<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int colon = line.indexOf(':');
+                if (colon > 0) {
+                    headers.put(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+                }
+            }
+            return new FetchResponse(url, status, headers, Files.readAllBytes(bodyPath(url)));
+        }
+    }
+
+    private Path headersPath(String url) {
+        return path(url, ".headers");
+    }
+
+    private Path bodyPath(String url) {
+        return path(url, ".body");
+    }
+
+    private Path path(String url, String suffix) {
+        String key = Hashes.sha256Hex(url.getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+        return root.resolve(host(url)).resolve(key + suffix);
+    }
+
+    private static String host(String url) {
+        try {
+            String host = new URL(url).getHost();
+            return host.isEmpty() ? "_" : host;
+        } catch (MalformedURLException e) {
+            return "_";
+        }
+    }
+
+    private static void write(Path target, byte[] data) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, data);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
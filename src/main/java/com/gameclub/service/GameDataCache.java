@@ -0,0 +1,71 @@
+package com.gameclub.service;
+
+import com.gameclub.mapper.GameDataMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 持有当前 game_data 生效版本的快照。读取方无锁获取，爬虫切换版本后原子替换。
+ */
+@Component
+public class GameDataCache {
+    private static final Logger logger = LoggerFactory.getLogger(GameDataCache.class);
+
+    private final AtomicReference<GameDataSnapshot> snapshot = new AtomicReference<>();
+
+    @Autowired
+    private GameDataMapper gameDataMapper;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    public GameDataSnapshot current() {
+        GameDataSnapshot current = snapshot.get();
+        if (current == null) {
+            // 首次访问时才加载，避免在 DatabaseInitializer 建表之前查询
+            synchronized (this) {
+                current = snapshot.get();
+                if (current == null) {
+                    current = reload();
+                }
+            }
+        }
+        return current;
+    }
+
+    public GameDataSnapshot reload() {
+        GameDataSnapshot loaded;
+        try {
+            loaded = GameDataSnapshot.of(gameDataMapper.findActive(), imageVariantService);
+        } catch (Exception e) {
+            logger.error("加载游戏数据快照失败", e);
+            GameDataSnapshot previous = snapshot.get();
+            return previous != null ? previous : GameDataSnapshot.EMPTY;
+        }
+        snapshot.set(loaded);
+        logger.info("游戏数据快照已更新，共 {} 条数据", loaded.size());
+        return loaded;
+    }
+
+    /**
+     * 在当前事务提交后重新加载快照；没有事务时立即加载。
+     */
+    public void reloadAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reload();
+                }
+            });
+        } else {
+            reload();
+        }
+    }
+}
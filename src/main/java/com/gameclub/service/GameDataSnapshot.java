@@ -0,0 +1,92 @@
+package com.gameclub.service;
+
+import com.gameclub.entity.GameData;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * game_data 表的不可变内存快照，按 游戏类型 -> 数据类型 分组为数组。
+ * 快照一旦构建就不再修改，爬虫提交新数据后整体替换。
+ */
+public final class GameDataSnapshot {
+    private static final GameData[] NO_ITEMS = new GameData[0];
+
+    static final GameDataSnapshot EMPTY = new GameDataSnapshot(Collections.emptyMap(), 0, new int[0]);
+
+    private final Map<String, Map<String, LoadoutPool>> pools;
+    private final int totalItems;
+    private final int[] imageSizes;
+
+    private GameDataSnapshot(Map<String, Map<String, LoadoutPool>> pools, int totalItems, int[] imageSizes) {
+        this.pools = pools;
+        this.totalItems = totalItems;
+        this.imageSizes = imageSizes;
+    }
+
+    /**
+     * 构建快照，图片URL经 images 解析为各尺寸的本地URL（未镜像时保留原始URL）。
+     */
+    static GameDataSnapshot of(List<GameData> rows, ImageUrlResolver images) {
+        Map<String, Map<String, List<GameData>>> grouped = new HashMap<>();
+        Set<String> seenKeys = new HashSet<>();
+        for (GameData row : rows) {
+            if (row.getGameType() == null || row.getDataType() == null || row.getName() == null) {
+                continue;
+            }
+            // 同一分类下的同名条目只保留一条，避免重复数据影响抽取概率
+            if (!seenKeys.add(row.getGameType() + "|" + row.getDataType() + "|" + row.getName())) {
+                continue;
+            }
+            grouped.computeIfAbsent(row.getGameType(), k -> new HashMap<>())
+                    .computeIfAbsent(row.getDataType(), k -> new ArrayList<>())
+                    .add(row);
+        }
+
+        int total = 0;
+        Map<String, Map<String, LoadoutPool>> pools = new HashMap<>();
+        for (Map.Entry<String, Map<String, List<GameData>>> game : grouped.entrySet()) {
+            Map<String, LoadoutPool> byType = new HashMap<>();
+            for (Map.Entry<String, List<GameData>> type : game.getValue().entrySet()) {
+                LoadoutPool pool = new LoadoutPool(type.getKey(), type.getValue().toArray(NO_ITEMS), images);
+                byType.put(type.getKey(), pool);
+                total += pool.size();
+            }
+            pools.put(game.getKey(), Collections.unmodifiableMap(byType));
+        }
+        return new GameDataSnapshot(Collections.unmodifiableMap(pools), total, images.variantSizes());
+    }
+
+    /**
+     * 返回指定分类的抽取池，不存在时返回空池。
+     */
+    public LoadoutPool pool(String gameType, String dataType) {
+        Map<String, LoadoutPool> byType = pools.get(gameType);
+        if (byType == null) {
+            return LoadoutPool.EMPTY;
+        }
+        LoadoutPool pool = byType.get(dataType);
+        return pool != null ? pool : LoadoutPool.EMPTY;
+    }
+
+    /**
+     * 是否预先生成了该缩略图尺寸的片段。
+     */
+    public boolean hasImageSize(int imageSize) {
+        for (int size : imageSizes) {
+            if (size == imageSize) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return totalItems;
+    }
+}
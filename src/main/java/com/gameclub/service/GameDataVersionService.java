@@ -0,0 +1,182 @@
+package com.gameclub.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.gameclub.entity.GameDataVersion;
+import com.gameclub.mapper.GameDataVersionMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * game_data 的版本管理。每个游戏在 game_data_version 中有且只有一个生效版本，读取方只看生效版本的数据；
+ * 爬虫写入新版本后调用 {@link #activate} 切换，也可以手工回滚到保留的旧版本。
+ * 非生效且不在最近 keep-versions 个之内的版本由后台任务清理：先删除版本记录（之后就不能再切换到它），
+ * 再分批删除没有版本记录的数据行，每批一个短事务，不会长时间占用 SQLite 的写锁。
+ */
+@Service
+public class GameDataVersionService {
+    private static final Logger logger = LoggerFactory.getLogger(GameDataVersionService.class);
+
+    private static final String ACTIVATE_SQL =
+            "UPDATE game_data_version SET active = CASE WHEN version = ? THEN 1 ELSE 0 END, " +
+            "activated_at = CASE WHEN version = ? THEN ? ELSE activated_at END " +
+            "WHERE game_type = ? AND (active = 1 OR version = ?)";
+    private static final String ORPHANS_SQL =
+            "SELECT DISTINCT d.game_type, d.version FROM game_data d LEFT JOIN game_data_version v " +
+            "ON v.game_type = d.game_type AND v.version = d.version WHERE v.version IS NULL";
+    private static final String DELETE_ORPHAN_BATCH_SQL =
+            "DELETE FROM game_data WHERE id IN " +
+            "(SELECT id FROM game_data WHERE game_type = ? AND version = ? LIMIT ?)";
+
+    @Autowired
+    private GameDataVersionMapper gameDataVersionMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private GameDataCache gameDataCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataWriteLock dataWriteLock;
+
+    @Value("${gameclub.game-data.keep-versions:3}")
+    private int keepVersions;
+
+    @Value("${gameclub.game-data.gc-batch-size:500}")
+    private int gcBatchSize;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        // 最新版本总要保留，新版本号依赖它递增
+        keepVersions = Math.max(1, keepVersions);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 某个游戏保留的版本，从新到旧。
+     */
+    public List<GameDataVersion> versions(String gameType) {
+        QueryWrapper<GameDataVersion> wrapper = new QueryWrapper<>();
+        wrapper.eq("game_type", gameType).orderByDesc("version");
+        return gameDataVersionMapper.selectList(wrapper);
+    }
+
+    /**
+     * 把指定版本切换为生效版本：一条 UPDATE 同时修改新旧两条版本记录。需要在调用方的事务内执行，
+     * 调用方负责在提交后刷新快照。版本不存在时抛出 IllegalArgumentException。
+     */
+    public void activate(String gameType, int version) {
+        Integer exists = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM game_data_version WHERE game_type = ? AND version = ?",
+                Integer.class, gameType, version);
+        if (exists == null || exists == 0) {
+            throw new IllegalArgumentException("数据版本不存在: " + gameType + " v" + version);
+        }
+        jdbcTemplate.update(ACTIVATE_SQL, version, version, LocalDateTime.now(), gameType, version);
+    }
+
+    /**
+     * 回滚到指定版本；version 为 null 时回滚到生效版本之前最近的一个版本。返回切换后的版本记录。
+     * 数据源状态保持不变，页面内容没有变化之前爬虫不会再生成新版本覆盖回滚结果。
+     * 与爬虫的写库共用 {@link DataWriteLock}，正在写入的新版本切换完成后才回滚。
+     */
+    public GameDataVersion rollback(String gameType, Integer version) {
+        dataWriteLock.lock();
+        GameDataVersion target;
+        try {
+            target = rollbackLocked(gameType, version);
+        } finally {
+            dataWriteLock.unlock();
+        }
+        logger.info("{} 数据已回滚到版本 {}", gameType, target.getVersion());
+        gameDataCache.reload();
+        return target;
+    }
+
+    private GameDataVersion rollbackLocked(String gameType, Integer version) {
+        return transactionTemplate.execute(status -> {
+            List<GameDataVersion> versions = versions(gameType);
+            GameDataVersion active = null;
+            for (GameDataVersion candidate : versions) {
+                if (Boolean.TRUE.equals(candidate.getActive())) {
+                    active = candidate;
+                }
+            }
+            GameDataVersion chosen = null;
+            for (GameDataVersion candidate : versions) {
+                boolean matches = version != null
+                        ? candidate.getVersion().equals(version)
+                        : active != null && candidate.getVersion() < active.getVersion();
+                if (matches) {
+                    chosen = candidate;
+                    break;
+                }
+            }
+            if (chosen == null) {
+                throw new IllegalArgumentException(version != null
+                        ? "数据版本不存在: " + gameType + " v" + version
+                        : "没有可回滚的旧版本: " + gameType);
+            }
+            activate(gameType, chosen.getVersion());
+            QueryWrapper<GameDataVersion> wrapper = new QueryWrapper<>();
+            wrapper.eq("game_type", gameType).eq("version", chosen.getVersion());
+            return gameDataVersionMapper.selectOne(wrapper);
+        });
+    }
+
+    /**
+     * 清理旧版本。每个游戏保留生效版本，以及除它之外最近的 keep-versions 个版本。
+     */
+    @Scheduled(fixedDelayString = "${gameclub.game-data.gc-interval-ms:600000}",
+            initialDelayString = "${gameclub.game-data.gc-interval-ms:600000}")
+    public void collectGarbage() {
+        try {
+            int retired = 0;
+            for (String gameType : jdbcTemplate.queryForList(
+                    "SELECT DISTINCT game_type FROM game_data_version", String.class)) {
+                List<Integer> expired = jdbcTemplate.queryForList(
+                        "SELECT version FROM game_data_version WHERE game_type = ? AND active = 0 " +
+                        "ORDER BY version DESC LIMIT -1 OFFSET ?", Integer.class, gameType, keepVersions);
+                for (Integer version : expired) {
+                    // active = 0 的条件防止与同时进行的回滚冲突：已被切换为生效版本的不会删除
+                    retired += jdbcTemplate.update(
+                            "DELETE FROM game_data_version WHERE game_type = ? AND version = ? AND active = 0",
+                            gameType, version);
+                }
+            }
+
+            long rows = 0;
+            for (Map<String, Object> orphan : jdbcTemplate.queryForList(ORPHANS_SQL)) {
+                String gameType = (String) orphan.get("game_type");
+                Object version = orphan.get("version");
+                int deleted;
+                do {
+                    deleted = jdbcTemplate.update(DELETE_ORPHAN_BATCH_SQL, gameType, version, gcBatchSize);
+                    rows += deleted;
+                } while (deleted >= gcBatchSize);
+            }
+            if (retired > 0 || rows > 0) {
+                logger.info("清理旧数据版本 {} 个，删除数据 {} 行", retired, rows);
+            }
+        } catch (Exception e) {
+            logger.warn("清理旧数据版本失败", e);
+        }
+    }
+}
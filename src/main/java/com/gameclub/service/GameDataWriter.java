@@ -0,0 +1,194 @@
+package com.gameclub.service;
+
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 将某个游戏的提取结果写成 game_data 的一个新版本。
+ * 以当前生效版本为基础，按 (game_type, data_type, name) 比对：未变的条目原样复制，图片URL变化的条目复制后更新，
+ * 消失的条目不再复制，新条目直接加入；整个新版本以 JDBC 批量插入。生效版本不受影响，读者在切换前只看到旧数据，
+ * 切换由 {@link GameDataVersionService#activate} 的一条 UPDATE 完成。没有任何变化时不生成新版本。
+ * 已有条目上手工调整过的权重会随复制保留。
+ */
+@Component
+public class GameDataWriter {
+
+    private static final String SELECT_ACTIVE_SQL =
+            "SELECT d.id, d.data_type, d.name, d.image_url, d.weight, d.created_at, d.version FROM game_data d " +
+            "JOIN game_data_version v ON v.game_type = d.game_type AND v.version = d.version AND v.active = 1 " +
+            "WHERE d.game_type = ? ORDER BY d.id";
+    private static final String NEXT_VERSION_SQL =
+            "SELECT MAX(v) FROM (SELECT MAX(version) AS v FROM game_data_version WHERE game_type = ? " +
+            "UNION ALL SELECT MAX(version) FROM game_data WHERE game_type = ?)";
+    private static final String INSERT_VERSION_SQL =
+            "INSERT INTO game_data_version (game_type, version, active, item_count, created_at) VALUES (?, ?, 0, ?, ?)";
+    private static final String INSERT_SQL =
+            "INSERT INTO game_data (id, game_type, data_type, name, image_url, weight, version, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 比对并写入新版本（未生效），返回各类变更的条数和新版本号。extracted 为 数据类型 -> 条目列表，
+     * 同一分类下重名的条目只保留第一条。需要在调用方的事务内执行。
+     */
+    Diff stage(String gameType, Map<String, List<CrawlerService.GameDataItem>> extracted) {
+        Map<String, ExistingRow> existing = new HashMap<>();
+        Integer[] activeVersion = {null};
+        int[] duplicates = {0};
+        jdbcTemplate.query(SELECT_ACTIVE_SQL, rs -> {
+            activeVersion[0] = rs.getInt("version");
+            Double weight = rs.getObject("weight") != null ? rs.getDouble("weight") : null;
+            ExistingRow row = new ExistingRow(rs.getString("image_url"), weight, rs.getString("created_at"));
+            // 历史上重复写入的同名条目只保留最早的一条
+            if (existing.putIfAbsent(key(rs.getString("data_type"), rs.getString("name")), row) != null) {
+                duplicates[0]++;
+            }
+        }, gameType);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>();
+        int inserted = 0;
+        int updated = 0;
+        int unchanged = 0;
+        for (Map.Entry<String, List<CrawlerService.GameDataItem>> entry : extracted.entrySet()) {
+            for (CrawlerService.GameDataItem item : entry.getValue()) {
+                ExistingRow row = existing.get(key(entry.getKey(), item.name));
+                if (row == null) {
+                    rows.add(new Object[]{entry.getKey(), item.name, item.imageUrl, null, now, now});
+                    inserted++;
+                    // 占位，防止同一批次内的重名条目被重复插入
+                    existing.put(key(entry.getKey(), item.name), ExistingRow.CLAIMED);
+                } else if (row == ExistingRow.CLAIMED || row.claimed) {
+                    continue;
+                } else {
+                    row.claimed = true;
+                    if (Objects.equals(row.imageUrl, item.imageUrl)) {
+                        rows.add(new Object[]{entry.getKey(), item.name, row.imageUrl, row.weight, row.createdAt, now});
+                        unchanged++;
+                    } else {
+                        rows.add(new Object[]{entry.getKey(), item.name, item.imageUrl, row.weight, row.createdAt, now});
+                        updated++;
+                    }
+                }
+            }
+        }
+        int deleted = duplicates[0];
+        for (ExistingRow row : existing.values()) {
+            if (row != ExistingRow.CLAIMED && !row.claimed) {
+                deleted++;
+            }
+        }
+
+        Integer previous = activeVersion[0];
+        if (previous != null && inserted == 0 && updated == 0 && deleted == 0) {
+            return new Diff(previous, previous, 0, 0, 0, unchanged);
+        }
+
+        Integer latest = jdbcTemplate.queryForObject(NEXT_VERSION_SQL, Integer.class, gameType, gameType);
+        int version = latest != null ? latest + 1 : 1;
+        jdbcTemplate.update(INSERT_VERSION_SQL, gameType, version, rows.size(), now);
+        List<Object[]> inserts = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            inserts.add(new Object[]{IdWorker.getId(), gameType, row[0], row[1], row[2], row[3], version, row[4], row[5]});
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+        }
+        return new Diff(previous, version, inserted, updated, deleted, unchanged);
+    }
+
+    private static String key(String dataType, String name) {
+        return dataType + "|" + name;
+    }
+
+    private static final class ExistingRow {
+        static final ExistingRow CLAIMED = new ExistingRow(null, null, null);
+
+        final String imageUrl;
+        final Double weight;
+        final String createdAt;
+        boolean claimed;
+
+        ExistingRow(String imageUrl, Double weight, String createdAt) {
+            this.imageUrl = imageUrl;
+            this.weight = weight;
+            this.createdAt = createdAt;
+        }
+    }
+
+    /**
+     * 一次写入的变更统计。没有变化时 version 与 previousVersion 相同，不需要切换。
+     */
+    public static final class Diff {
+        private final Integer previousVersion;
+        private final int version;
+        private final int inserted;
+        private final int updated;
+        private final int deleted;
+        private final int unchanged;
+
+        Diff(Integer previousVersion, int version, int inserted, int updated, int deleted, int unchanged) {
+            this.previousVersion = previousVersion;
+            this.version = version;
+            this.inserted = inserted;
+            this.updated = updated;
+            this.deleted = deleted;
+            this.unchanged = unchanged;
+        }
+
+        /**
+         * 写入前的生效版本，该游戏还没有数据时为 null。
+         */
+        public Integer getPreviousVersion() {
+            return previousVersion;
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public int getInserted() {
+            return inserted;
+        }
+
+        public int getUpdated() {
+            return updated;
+        }
+
+        public int getDeleted() {
+            return deleted;
+        }
+
+        public int getUnchanged() {
+            return unchanged;
+        }
+
+        /**
+         * 同步后该游戏的条目总数。
+         */
+        public int getTotal() {
+            return inserted + updated + unchanged;
+        }
+
+        public boolean isEmpty() {
+            return previousVersion != null && previousVersion == version;
+        }
+
+        @Override
+        public String toString() {
+            return (isEmpty() ? "版本 " + version + " 未变" : "版本 " + previousVersion + " -> " + version)
+                    + "，新增 " + inserted + "，更新 " + updated + "，删除 " + deleted + "，未变 " + unchanged;
+        }
+    }
+}
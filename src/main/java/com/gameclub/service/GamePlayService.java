@@ -1,104 +1,218 @@
 package com.gameclub.service;
 
-import com.gameclub.entity.GameData;
-import com.gameclub.mapper.GameDataMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
-import java.util.List;
-import java.util.Random;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Service
 public class GamePlayService {
     private static final Logger logger = LoggerFactory.getLogger(GamePlayService.class);
-    private final Random random = new Random();
+
+    // 单次批量生成的上限
+    public static final int MAX_BATCH_SIZE = 50;
+
+    // 批量输出时每生成多少套刷新一次输出流
+    private static final int FLUSH_EVERY = 10;
+
+    // 三角洲：干员、地图、武器；永劫无间：英雄、地图、武器
+    private static final String[] DELTA_TYPES = {"character", "map", "weapon"};
+    private static final String[] YJWUJIAN_TYPES = {"hero", "map", "weapon"};
+    private static final String[] NO_TYPES = new String[0];
+
+    // 图片尺寸 0 表示原图
+    public static final int ORIGINAL_IMAGE = 0;
+
+    // 各游戏响应中固定不变的 JSON 片段：开头的 game 字段，以及该游戏没有的分类（输出为 null）
+    private static final byte[] DELTA_PREFIX = LoadoutPool.utf8("{\"game\":\"delta\",");
+    private static final byte[] DELTA_SUFFIX = LoadoutPool.utf8(",\"hero\":null,\"heroImage\":null}");
+    private static final byte[] YJWUJIAN_PREFIX = LoadoutPool.utf8("{\"game\":\"yjwujian\",");
+    private static final byte[] YJWUJIAN_SUFFIX = LoadoutPool.utf8(",\"character\":null,\"characterImage\":null}");
 
     @Autowired
-    private GameDataMapper gameDataMapper;
+    private GameDataCache gameDataCache;
 
     public GamePlayResult generateGamePlay(String gameType) {
-        GamePlayResult result = new GamePlayResult();
-        result.setGame(gameType);
+        return generateGamePlay(gameType, LoadoutFilter.NONE);
+    }
 
+    public GamePlayResult generateGamePlay(String gameType, LoadoutFilter filter) {
         try {
-            if ("delta".equals(gameType)) {
-                // 三角洲：干员、地图、武器
-                List<GameData> characters = gameDataMapper.findByGameTypeAndDataType("delta", "character");
-                logger.debug("查询到 {} 个三角洲干员", characters.size());
-                if (!characters.isEmpty()) {
-                    GameData selected = characters.get(random.nextInt(characters.size()));
-                    logger.debug("选中的干员: {}, 图片URL: {}", selected.getName(), selected.getImageUrl());
-                    result.setCharacter(selected.getName());
-                    result.setCharacterImage(getImageUrl(selected));
-                } else {
-                    logger.warn("未找到三角洲干员数据");
-                }
+            Draw draw = new Draw(gameDataCache.current(), gameType, filter, false, ORIGINAL_IMAGE);
+            return draw.nextResult(ThreadLocalRandom.current());
+        } catch (Exception e) {
+            logger.error("生成游戏玩法失败", e);
+            throw new RuntimeException("生成游戏玩法失败: " + e.getMessage());
+        }
+    }
 
-                List<GameData> maps = gameDataMapper.findByGameTypeAndDataType("delta", "map");
-                if (!maps.isEmpty()) {
-                    GameData selected = maps.get(random.nextInt(maps.size()));
-                    result.setMap(selected.getName());
-                    result.setMapImage(getImageUrl(selected));
-                }
+    /**
+     * 与 generateGamePlay 相同，但直接把快照中预先编码好的 JSON 片段拼接写入输出流，
+     * 不创建 GamePlayResult，也不经过 Jackson。
+     */
+    public void writeGamePlay(String gameType, LoadoutFilter filter, OutputStream out) throws IOException {
+        writeGamePlay(gameType, filter, ORIGINAL_IMAGE, out);
+    }
 
-                List<GameData> weapons = gameDataMapper.findByGameTypeAndDataType("delta", "weapon");
-                if (!weapons.isEmpty()) {
-                    GameData selected = weapons.get(random.nextInt(weapons.size()));
-                    result.setWeapon(selected.getName());
-                    result.setWeaponImage(getImageUrl(selected));
+    /**
+     * imageSize 为缩略图边长（像素），图片URL指向该尺寸的缩略图；0 表示原图。
+     */
+    public void writeGamePlay(String gameType, LoadoutFilter filter, int imageSize, OutputStream out)
+            throws IOException {
+        Draw draw = new Draw(gameDataCache.current(), gameType, filter, false, imageSize);
+        draw.writeNext(ThreadLocalRandom.current(), out);
+    }
+
+    public void writeGamePlays(String gameType, int count, boolean noRepeats, LoadoutFilter filter,
+                               OutputStream out) throws IOException {
+        writeGamePlays(gameType, count, noRepeats, filter, ORIGINAL_IMAGE, out);
+    }
+
+    /**
+     * 批量版本的 writeGamePlay，输出 JSON 数组，每生成若干套刷新一次输出流。
+     */
+    public void writeGamePlays(String gameType, int count, boolean noRepeats, LoadoutFilter filter,
+                               int imageSize, OutputStream out) throws IOException {
+        Draw draw = new Draw(gameDataCache.current(), gameType, filter, noRepeats, imageSize);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        out.write('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            draw.writeNext(random, out);
+            if ((i + 1) % FLUSH_EVERY == 0) {
+                out.flush();
+            }
+        }
+        out.write(']');
+    }
+
+    /**
+     * 当前快照是否支持该缩略图尺寸，0 表示原图，总是支持。
+     */
+    public boolean supportsImageSize(int imageSize) {
+        return imageSize == ORIGINAL_IMAGE || gameDataCache.current().hasImageSize(imageSize);
+    }
+
+    private static String[] dataTypes(String gameType) {
+        if ("delta".equals(gameType)) {
+            return DELTA_TYPES;
+        } else if ("yjwujian".equals(gameType)) {
+            return YJWUJIAN_TYPES;
+        }
+        return NO_TYPES;
+    }
+
+    /**
+     * 一次请求内的抽取状态：各分类的抽取池、可选位图以及 noRepeats 时的剩余位图。
+     */
+    private static final class Draw {
+        private final String gameType;
+        private final String[] dataTypes;
+        private final byte[] prefix;
+        private final byte[] suffix;
+        private final LoadoutPool[] pools;
+        private final long[][] allowed;
+        private final long[][] available;
+        private final long[][] favorites;
+        private final double favoriteBoost;
+        private final boolean noRepeats;
+        private final int[] picks;
+        private final int[] imageSlots;
+
+        Draw(GameDataSnapshot snapshot, String gameType, LoadoutFilter filter, boolean noRepeats, int imageSize) {
+            this.gameType = gameType;
+            this.dataTypes = dataTypes(gameType);
+            boolean delta = "delta".equals(gameType);
+            this.prefix = delta ? DELTA_PREFIX : YJWUJIAN_PREFIX;
+            this.suffix = delta ? DELTA_SUFFIX : YJWUJIAN_SUFFIX;
+            this.pools = new LoadoutPool[dataTypes.length];
+            this.allowed = new long[dataTypes.length][];
+            this.available = new long[dataTypes.length][];
+            this.favorites = new long[dataTypes.length][];
+            this.favoriteBoost = filter.getFavoriteBoost();
+            this.noRepeats = noRepeats;
+            this.picks = new int[dataTypes.length];
+            this.imageSlots = new int[dataTypes.length];
+            for (int t = 0; t < dataTypes.length; t++) {
+                pools[t] = snapshot.pool(gameType, dataTypes[t]);
+                imageSlots[t] = pools[t].imageSlot(imageSize);
+                allowed[t] = pools[t].allowed(filter);
+                available[t] = noRepeats ? allowed[t].clone() : allowed[t];
+                favorites[t] = pools[t].mask(filter.getFavorites());
+            }
+        }
+
+        private void next(ThreadLocalRandom random) {
+            for (int t = 0; t < pools.length; t++) {
+                if (noRepeats && LoadoutPool.isEmpty(available[t])) {
+                    // 本轮可选条目已用完，重新开始一轮
+                    System.arraycopy(allowed[t], 0, available[t], 0, allowed[t].length);
                 }
-            } else if ("yjwujian".equals(gameType)) {
-                // 永劫无间：英雄、地图、武器
-                List<GameData> heroes = gameDataMapper.findByGameTypeAndDataType("yjwujian", "hero");
-                if (!heroes.isEmpty()) {
-                    GameData selected = heroes.get(random.nextInt(heroes.size()));
-                    result.setHero(selected.getName());
-                    result.setHeroImage(getImageUrl(selected));
+                int index = pools[t].sample(random, available[t], favorites[t], favoriteBoost);
+                if (index < 0) {
+                    logger.warn("未找到 {} 的 {} 数据", gameType, dataTypes[t]);
+                } else if (noRepeats) {
+                    LoadoutPool.clear(available[t], index);
                 }
+                picks[t] = index;
+            }
+        }
 
-                List<GameData> maps = gameDataMapper.findByGameTypeAndDataType("yjwujian", "map");
-                if (!maps.isEmpty()) {
-                    GameData selected = maps.get(random.nextInt(maps.size()));
-                    result.setMap(selected.getName());
-                    result.setMapImage(getImageUrl(selected));
+        GamePlayResult nextResult(ThreadLocalRandom random) {
+            next(random);
+            GamePlayResult result = new GamePlayResult();
+            result.setGame(gameType);
+            for (int t = 0; t < pools.length; t++) {
+                if (picks[t] >= 0) {
+                    apply(result, dataTypes[t], pools[t].get(picks[t]).getName(), pools[t].imageUrl(picks[t]));
                 }
+            }
+            return result;
+        }
 
-                List<GameData> weapons = gameDataMapper.findByGameTypeAndDataType("yjwujian", "weapon");
-                if (!weapons.isEmpty()) {
-                    GameData selected = weapons.get(random.nextInt(weapons.size()));
-                    result.setWeapon(selected.getName());
-                    result.setWeaponImage(getImageUrl(selected));
+        void writeNext(ThreadLocalRandom random, OutputStream out) throws IOException {
+            if (dataTypes.length == 0) {
+                throw new IllegalArgumentException("不支持的游戏类型: " + gameType);
+            }
+            next(random);
+            out.write(prefix);
+            for (int t = 0; t < pools.length; t++) {
+                if (t > 0) {
+                    out.write(',');
                 }
+                out.write(picks[t] >= 0 ? pools[t].fragment(picks[t], imageSlots[t]) : LoadoutPool.nullFragment(dataTypes[t]));
             }
-        } catch (Exception e) {
-            logger.error("生成游戏玩法失败", e);
-            throw new RuntimeException("生成游戏玩法失败: " + e.getMessage());
+            out.write(suffix);
         }
-
-        return result;
     }
 
-    private String getImageUrl(GameData gameData) {
-        if (gameData.getImageUrl() != null && !gameData.getImageUrl().isEmpty()) {
-            logger.debug("使用数据库中的图片URL: {} for {}", gameData.getImageUrl(), gameData.getName());
-            return gameData.getImageUrl();
-        }
-        // 如果没有设置图片URL，生成一个占位图片URL
-        // URL编码中文名称
-        String encodedName = "";
-        try {
-            encodedName = URLEncoder.encode(gameData.getName(), StandardCharsets.UTF_8.toString());
-        } catch (Exception e) {
-            logger.warn("URL编码失败: {}", gameData.getName(), e);
-            encodedName = gameData.getName();
+    private static void apply(GamePlayResult result, String dataType, String name, String imageUrl) {
+        switch (dataType) {
+            case "character":
+                result.setCharacter(name);
+                result.setCharacterImage(imageUrl);
+                break;
+            case "hero":
+                result.setHero(name);
+                result.setHeroImage(imageUrl);
+                break;
+            case "map":
+                result.setMap(name);
+                result.setMapImage(imageUrl);
+                break;
+            case "weapon":
+                result.setWeapon(name);
+                result.setWeaponImage(imageUrl);
+                break;
+            default:
+                break;
         }
-        String placeholderUrl = "https://via.placeholder.com/300x300?text=" + encodedName;
-        logger.debug("生成占位图片URL: {} for {}", placeholderUrl, gameData.getName());
-        return placeholderUrl;
     }
 
     public static class GamePlayResult {
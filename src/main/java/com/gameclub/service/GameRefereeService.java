@@ -0,0 +1,353 @@
+package com.gameclub.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务端裁判：为每个游戏中的五子棋、象棋房间保存一局棋（房主先行：五子棋执黑、象棋执红；客人后行），
+ * 校验落子的玩家、轮次和走法，分出胜负或和棋后结束房间（写库时移入 rooms_archive）。
+ * 对局随房间状态创建和丢弃：房间进入游戏中时开始新的一局，客人离开或房间关闭时丢弃；
+ * 分出胜负的对局再保留 finished-ttl-ms，断线后重连的客户端仍能取到终局和结果。
+ * 对局只保存在内存中，重启后游戏中的房间从开局重新开始。同一局的落子串行进行，不同房间之间互不影响。
+ */
+@Service
+public class GameRefereeService implements RoomRegistry.Listener {
+    private static final Logger logger = LoggerFactory.getLogger(GameRefereeService.class);
+
+    public static final String WUZIQI = "wuziqi";
+    public static final String XIANGQI = "xiangqi";
+
+    @Autowired
+    private RoomRegistry roomRegistry;
+
+    @Value("${gameclub.game.finished-ttl-ms:600000}")
+    private long finishedTtlMs;
+
+    private final ConcurrentMap<String, Game> games = new ConcurrentHashMap<>();
+    private ScheduledExecutorService cleaner;
+
+    @PostConstruct
+    public void init() {
+        cleaner = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("game-cleaner-"));
+        roomRegistry.addListener(this);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cleaner.shutdownNow();
+    }
+
+    /**
+     * 与大厅索引相同，按房间当前状态调整，同一房间的调整串行进行。
+     */
+    @Override
+    public void roomChanged(RoomRegistry.LiveRoom room) {
+        if (!refereed(room.getGameType())) {
+            return;
+        }
+        synchronized (room) {
+            RoomRegistry.State state = room.getState();
+            Game game = games.get(room.getCode());
+            if (state.getStatus() == RoomRegistry.FINISHED) {
+                if (game != null && game.room == room) {
+                    // 终局保留一段时间后再丢弃
+                    cleaner.schedule(() -> games.remove(room.getCode(), game), finishedTtlMs, TimeUnit.MILLISECONDS);
+                }
+            } else if (state.getStatus() != RoomRegistry.PLAYING) {
+                // 客人离开、房间关闭，或代码已被新房间使用（保留的旧终局随之丢弃）
+                if (game != null && (game.room == room || game.room.getState().getStatus() == RoomRegistry.FINISHED)) {
+                    games.remove(room.getCode(), game);
+                }
+            } else if (game == null || game.room != room || !game.secondId.equals(state.getGuestId())) {
+                games.put(room.getCode(), XIANGQI.equals(room.getGameType())
+                        ? new XiangqiGame(room, state.getGuestId())
+                        : new WuziqiGame(room, state.getGuestId()));
+            }
+        }
+    }
+
+    /**
+     * 房间的落子是否由服务端校验。房间不存在（包括已结束、已关闭）时也返回 true，由 move 拒绝，不再转发。
+     */
+    public boolean referees(String roomCode) {
+        RoomRegistry.LiveRoom room = roomCode != null ? roomRegistry.get(roomCode) : null;
+        return room == null || refereed(room.getGameType());
+    }
+
+    /**
+     * userId 走一步：五子棋为 message 中的 row、col，象棋为 move（坐标记法，如 "h2e2"）。
+     * 非法（对局不存在、不是该玩家的回合、走法不合规则、对局已结束）时抛出 IllegalArgumentException，棋盘不变。
+     * 返回广播给房间的走子信息，其中 result 为 ongoing 或对局结束的原因。
+     */
+    public Map<String, Object> move(String roomCode, String userId, Map<String, Object> message) {
+        Game game = roomCode != null ? games.get(roomCode) : null;
+        if (game == null) {
+            throw new IllegalArgumentException("对局不存在或还未开始");
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("roomCode", roomCode);
+        data.put("userId", userId);
+        boolean over;
+        synchronized (game) {
+            RoomRegistry.State current = game.room.getState();
+            if (current.getStatus() != RoomRegistry.PLAYING) {
+                // 分出胜负，或房间因空闲超时等原因已结束
+                throw new IllegalArgumentException("对局已结束");
+            }
+            // 取到对局后客人离开、新客人加入，房间已开始（或即将开始）新的一局，旧棋盘上的落子不再有效。
+            // 新的一局在房间变化的通知中才放入 games，通知之前先以房间当前的客人判断
+            if (games.get(roomCode) != game || !game.secondId.equals(current.getGuestId())) {
+                throw new IllegalArgumentException("对局已重新开始");
+            }
+            if (!game.isOver() && !userId.equals(game.toMove() == 0 ? game.firstId : game.secondId)) {
+                throw new IllegalArgumentException(
+                        userId.equals(game.firstId) || userId.equals(game.secondId) ? "还没轮到你" : "不是对局中的玩家");
+            }
+            game.play(message, data);
+            over = game.isOver();
+            if (over && game.winner() >= 0) {
+                data.put("winnerId", game.winner() == 0 ? game.firstId : game.secondId);
+            }
+        }
+        if (over) {
+            finish(game);
+        }
+        return data;
+    }
+
+    /**
+     * 对局的当前状态，供断线重连的客户端恢复棋盘；对局不存在时返回 null。
+     * moves 为按顺序的走子，先行方先走；对局结束后 over 为 true，result 为结束的原因，winnerId 为获胜方（和棋时没有）。
+     */
+    public Map<String, Object> state(String roomCode) {
+        Game game = games.get(roomCode);
+        if (game == null) {
+            return null;
+        }
+        Map<String, Object> state = new HashMap<>();
+        synchronized (game) {
+            game.describe(state);
+            state.put("over", game.isOver());
+            state.put("result", game.result());
+            if (game.winner() >= 0) {
+                state.put("winnerId", game.winner() == 0 ? game.firstId : game.secondId);
+            }
+        }
+        state.put("roomCode", roomCode);
+        state.put("gameType", game.room.getGameType());
+        return state;
+    }
+
+    private static boolean refereed(String gameType) {
+        return WUZIQI.equals(gameType) || XIANGQI.equals(gameType);
+    }
+
+    // 分出胜负或和棋后结束房间，对局在房间的变化通知中安排过期
+    private void finish(Game game) {
+        RoomRegistry.State current;
+        do {
+            current = game.room.getState();
+            if (current.getStatus() != RoomRegistry.PLAYING) {
+                return;
+            }
+        } while (!roomRegistry.transition(game.room, current, new RoomRegistry.State(
+                RoomRegistry.FINISHED, current.getGuestId(), current.getGuestName(), LocalDateTime.now())));
+        logger.info("房间 {} 对局结束", game.room.getCode());
+    }
+
+    private static int coordinate(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        try {
+            return Integer.parseInt(String.valueOf(value));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("落子坐标无效: " + value);
+        }
+    }
+
+    /**
+     * 一局棋：first 为房主（先行），second 为客人。以下方法都在持有该对象的锁时调用。
+     */
+    private abstract static class Game {
+        final RoomRegistry.LiveRoom room;
+        final String firstId;
+        final String secondId;
+
+        Game(RoomRegistry.LiveRoom room, String secondId) {
+            this.room = room;
+            this.firstId = room.getHostId();
+            this.secondId = secondId;
+        }
+
+        // 0 为先行方
+        abstract int toMove();
+
+        abstract boolean isOver();
+
+        // 0 为先行方，未分胜负时为 -1
+        abstract int winner();
+
+        // ongoing 或对局结束的原因
+        abstract String result();
+
+        // 走一步并把走子信息写入 data，非法时抛出 IllegalArgumentException
+        abstract void play(Map<String, Object> message, Map<String, Object> data);
+
+        abstract void describe(Map<String, Object> state);
+    }
+
+    private static final class WuziqiGame extends Game {
+        private static final String[] COLORS = {"black", "white"};
+
+        final WuziqiBoard board = new WuziqiBoard();
+
+        WuziqiGame(RoomRegistry.LiveRoom room, String secondId) {
+            super(room, secondId);
+        }
+
+        @Override
+        int toMove() {
+            return board.toMove();
+        }
+
+        @Override
+        boolean isOver() {
+            return board.isOver();
+        }
+
+        @Override
+        int winner() {
+            return board.winner();
+        }
+
+        @Override
+        String result() {
+            return !board.isOver() ? "ongoing" : board.winner() >= 0 ? "win" : "draw";
+        }
+
+        @Override
+        void play(Map<String, Object> message, Map<String, Object> data) {
+            int row = coordinate(message.get("row"));
+            int col = coordinate(message.get("col"));
+            int color = board.toMove();
+            int result = board.play(row, col);
+            switch (result) {
+                case WuziqiBoard.OUT_OF_BOARD:
+                    throw new IllegalArgumentException("落子位置超出棋盘");
+                case WuziqiBoard.OCCUPIED:
+                    throw new IllegalArgumentException("该位置已有棋子");
+                case WuziqiBoard.GAME_OVER:
+                    throw new IllegalArgumentException("对局已结束");
+                default:
+                    break;
+            }
+            data.put("row", row);
+            data.put("col", col);
+            data.put("color", COLORS[color]);
+            data.put("moveNumber", board.moveCount());
+            data.put("result", result());
+        }
+
+        @Override
+        void describe(Map<String, Object> state) {
+            List<int[]> moves = new ArrayList<>(board.moveCount());
+            for (int i = 0; i < board.moveCount(); i++) {
+                moves.add(new int[]{board.moveRow(i), board.moveCol(i)});
+            }
+            state.put("size", WuziqiBoard.SIZE);
+            state.put("blackId", firstId);
+            state.put("whiteId", secondId);
+            state.put("toMove", COLORS[board.toMove()]);
+            state.put("moves", moves);
+        }
+    }
+
+    private static final class XiangqiGame extends Game {
+        private static final String[] COLORS = {"red", "black"};
+        private static final String[] RESULTS = {"ongoing", "checkmate", "stalemate", "repetition", "perpetual_check"};
+
+        final XiangqiBoard board = new XiangqiBoard();
+
+        XiangqiGame(RoomRegistry.LiveRoom room, String secondId) {
+            super(room, secondId);
+        }
+
+        @Override
+        int toMove() {
+            return board.toMove();
+        }
+
+        @Override
+        boolean isOver() {
+            return board.status() != XiangqiBoard.ONGOING;
+        }
+
+        @Override
+        int winner() {
+            return board.winner();
+        }
+
+        @Override
+        String result() {
+            return RESULTS[board.status()];
+        }
+
+        @Override
+        void play(Map<String, Object> message, Map<String, Object> data) {
+            Object value = message.get("move");
+            String move = value != null ? String.valueOf(value) : "";
+            int from = move.length() == 4 ? XiangqiBoard.square(move.substring(0, 2)) : -1;
+            int to = move.length() == 4 ? XiangqiBoard.square(move.substring(2)) : -1;
+            if (from < 0 || to < 0) {
+                throw new IllegalArgumentException("走法格式不对: " + move);
+            }
+            int color = board.toMove();
+            int result = board.play(from, to);
+            if (result == XiangqiBoard.ILLEGAL) {
+                throw new IllegalArgumentException("不合规则的走法: " + move);
+            }
+            if (result == XiangqiBoard.GAME_OVER) {
+                throw new IllegalArgumentException("对局已结束");
+            }
+            data.put("move", move);
+            data.put("color", COLORS[color]);
+            data.put("moveNumber", board.moveCount());
+            data.put("capture", board.isCapture(board.moveCount() - 1));
+            data.put("check", board.inCheck());
+            data.put("result", result());
+        }
+
+        @Override
+        void describe(Map<String, Object> state) {
+            List<String> moves = new ArrayList<>(board.moveCount());
+            for (int i = 0; i < board.moveCount(); i++) {
+                moves.add(board.moveName(i));
+            }
+            state.put("startFen", XiangqiBoard.START_FEN);
+            state.put("fen", board.fen());
+            state.put("redId", firstId);
+            state.put("blackId", secondId);
+            state.put("toMove", COLORS[board.toMove()]);
+            state.put("inCheck", board.inCheck());
+            state.put("moves", moves);
+        }
+    }
+}
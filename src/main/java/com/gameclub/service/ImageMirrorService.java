@@ -0,0 +1,300 @@
+package com.gameclub.service;
+
+import com.gameclub.entity.ImageMirror;
+import com.gameclub.mapper.ImageMirrorMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+/**
+ * 图片本地镜像：把 game_data 引用的第三方图片下载到本地磁盘，按内容的 SHA-256 存放
+ * （{dir}/ab/abcdef...），相同内容只存一份。image_mirror 表记录 原始URL -> 哈希，
+ * 生成接口据此返回本地URL，由 /api/images/{hash} 提供文件。
+ * 已镜像的图片超过 revalidate-after-ms 后带上次的 ETag/Last-Modified 重新请求，
+ * 304 或内容哈希不变时只更新校验时间；内容变化时哈希随之变化，缩略图也会为新的原图重新生成。
+ */
+@Service
+public class ImageMirrorService {
+    private static final Logger logger = LoggerFactory.getLogger(ImageMirrorService.class);
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    @Autowired
+    private ImageMirrorMapper imageMirrorMapper;
+
+    @Autowired
+    private PageFetcher pageFetcher;
+
+    @Value("${gameclub.images.dir:images}")
+    private String dir;
+
+    @Value("${gameclub.images.base-url:http://localhost:8080/api/images/}")
+    private String baseUrl;
+
+    @Value("${gameclub.images.download-parallelism:4}")
+    private int downloadParallelism;
+
+    @Value("${gameclub.images.max-bytes:5242880}")
+    private int maxBytes;
+
+    @Value("${gameclub.images.revalidate-after-ms:86400000}")
+    private long revalidateAfterMs;
+
+    private Path root;
+    private ExecutorService downloadExecutor;
+
+    // 原始URL -> 镜像记录、哈希 -> 镜像记录，整体替换，读取无锁
+    private volatile Map<String, ImageMirror> bySource;
+    private volatile Map<String, ImageMirror> byHash;
+
+    @PostConstruct
+    public void init() {
+        root = Paths.get(dir).toAbsolutePath().normalize();
+        downloadExecutor = Executors.newFixedThreadPool(downloadParallelism, new CustomizableThreadFactory("image-mirror-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        downloadExecutor.shutdownNow();
+    }
+
+    /**
+     * 原始图片URL对应的镜像记录，尚未镜像时返回 null。
+     */
+    public ImageMirror findBySource(String sourceUrl) {
+        return sourceUrl != null ? mirrors().get(sourceUrl) : null;
+    }
+
+    /**
+     * 本地文件的访问URL。
+     */
+    public String url(String hash) {
+        return baseUrl + hash;
+    }
+
+    /**
+     * 按哈希查找镜像记录，哈希格式不对或不存在时返回 null。
+     */
+    public ImageMirror find(String hash) {
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            return null;
+        }
+        mirrors();
+        Map<String, ImageMirror> hashes = byHash;
+        return hashes != null ? hashes.get(hash) : null;
+    }
+
+    /**
+     * 哈希对应的本地文件路径。
+     */
+    public Path path(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    /**
+     * 并行下载尚未镜像的图片、重新校验到期的已镜像图片，新内容写入磁盘，返回需要保存的记录（未写库）：
+     * 新的镜像、内容变化后的镜像（哈希不同），以及内容未变、只更新了校验时间的镜像。单张图片失败只记录日志，
+     * 已有的镜像保持不变。下载在 download-parallelism 个线程内进行，调用线程等待全部完成。
+     */
+    public List<ImageMirror> download(Collection<String> sourceUrls) throws InterruptedException {
+        Map<String, ImageMirror> known = mirrors();
+        LocalDateTime dueBefore = LocalDateTime.now().minusNanos(revalidateAfterMs * 1_000_000);
+        Set<String> pending = new LinkedHashSet<>();
+        int revalidating = 0;
+        for (String url : sourceUrls) {
+            if (url == null || !url.startsWith("http") || pending.contains(url)) {
+                continue;
+            }
+            ImageMirror previous = known.get(url);
+            if (previous == null) {
+                pending.add(url);
+            } else if (dueForRevalidation(previous, dueBefore)) {
+                pending.add(url);
+                revalidating++;
+            }
+        }
+        if (pending.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Future<ImageMirror>> futures = new ArrayList<>();
+        for (String url : pending) {
+            ImageMirror previous = known.get(url);
+            futures.add(downloadExecutor.submit((Callable<ImageMirror>) () -> downloadOne(url, previous)));
+        }
+        List<ImageMirror> mirrored = new ArrayList<>();
+        for (Future<ImageMirror> future : futures) {
+            try {
+                ImageMirror mirror = future.get();
+                if (mirror != null) {
+                    mirrored.add(mirror);
+                }
+            } catch (ExecutionException e) {
+                logger.warn("镜像图片失败", e.getCause());
+            } catch (InterruptedException e) {
+                for (Future<ImageMirror> f : futures) {
+                    f.cancel(true);
+                }
+                throw e;
+            }
+        }
+        logger.info("镜像图片完成：待下载 {} 张（其中重新校验 {} 张），成功 {} 张", pending.size(), revalidating, mirrored.size());
+        return mirrored;
+    }
+
+    /**
+     * 保存镜像记录，需要在调用方的事务内执行。只写库，不更新内存映射：事务提交后由调用方调用 refresh()。
+     */
+    public void save(List<ImageMirror> mirrored) {
+        for (ImageMirror mirror : mirrored) {
+            imageMirrorMapper.deleteById(mirror.getSourceUrl());
+            imageMirrorMapper.insert(mirror);
+        }
+    }
+
+    /**
+     * 从 image_mirror 表重新加载映射。
+     */
+    public synchronized void refresh() {
+        Map<String, ImageMirror> sources = new HashMap<>();
+        Map<String, ImageMirror> hashes = new HashMap<>();
+        for (ImageMirror mirror : imageMirrorMapper.selectList(null)) {
+            // 文件被手工删除的记录不再使用，下次爬取时会重新下载
+            if (Files.isRegularFile(path(mirror.getHash()))) {
+                sources.put(mirror.getSourceUrl(), mirror);
+                hashes.put(mirror.getHash(), mirror);
+            }
+        }
+        byHash = hashes;
+        bySource = sources;
+    }
+
+    private Map<String, ImageMirror> mirrors() {
+        Map<String, ImageMirror> current = bySource;
+        if (current == null) {
+            // 首次访问时才加载，避免在 DatabaseInitializer 建表之前查询
+            synchronized (this) {
+                if (bySource == null) {
+                    try {
+                        refresh();
+                    } catch (Exception e) {
+                        logger.warn("加载图片镜像记录失败", e);
+                        return Collections.emptyMap();
+                    }
+                }
+                current = bySource;
+            }
+        }
+        return current;
+    }
+
+    private static boolean dueForRevalidation(ImageMirror mirror, LocalDateTime dueBefore) {
+        LocalDateTime checkedAt = mirror.getCheckedAt() != null ? mirror.getCheckedAt() : mirror.getMirroredAt();
+        return checkedAt == null || checkedAt.isBefore(dueBefore);
+    }
+
+    // previous 为已有的镜像时发送条件请求；内存映射中的记录不修改，返回新的记录
+    private ImageMirror downloadOne(String url, ImageMirror previous) {
+        try {
+            Map<String, String> conditional = new HashMap<>();
+            if (previous != null && previous.getEtag() != null) {
+                conditional.put("If-None-Match", previous.getEtag());
+            }
+            if (previous != null && previous.getLastModified() != null) {
+                conditional.put("If-Modified-Since", previous.getLastModified());
+            }
+            FetchResponse response = pageFetcher.fetch(url, conditional, maxBytes);
+            LocalDateTime now = LocalDateTime.now();
+            if (response.getStatusCode() == 304 && previous != null) {
+                return checked(previous, previous.getEtag(), previous.getLastModified(), now);
+            }
+            if (response.getStatusCode() != 200) {
+                logger.warn("下载图片失败: {} - HTTP {}", url, response.getStatusCode());
+                return null;
+            }
+            String contentType = response.getContentType();
+            if (contentType == null || !contentType.startsWith("image/")) {
+                logger.warn("跳过非图片内容: {} ({})", url, contentType);
+                return null;
+            }
+            byte[] body = response.getBody();
+            String hash = Hashes.sha256Hex(body);
+            if (previous != null && hash.equals(previous.getHash())) {
+                return checked(previous, response.header("ETag"), response.header("Last-Modified"), now);
+            }
+            store(hash, body);
+
+            ImageMirror mirror = new ImageMirror();
+            mirror.setSourceUrl(url);
+            mirror.setHash(hash);
+            mirror.setContentType(contentType);
+            mirror.setSize((long) body.length);
+            mirror.setMirroredAt(now);
+            mirror.setEtag(response.header("ETag"));
+            mirror.setLastModified(response.header("Last-Modified"));
+            mirror.setCheckedAt(now);
+            if (previous != null) {
+                logger.info("图片内容已变化: {}", url);
+            }
+            return mirror;
+        } catch (IOException e) {
+            logger.warn("下载图片失败: {} - {}", url, e.toString());
+            return null;
+        }
+    }
+
+    private static ImageMirror checked(ImageMirror previous, String etag, String lastModified, LocalDateTime now) {
+        ImageMirror mirror = new ImageMirror();
+        mirror.setSourceUrl(previous.getSourceUrl());
+        mirror.setHash(previous.getHash());
+        mirror.setContentType(previous.getContentType());
+        mirror.setSize(previous.getSize());
+        mirror.setMirroredAt(previous.getMirroredAt());
+        mirror.setEtag(etag);
+        mirror.setLastModified(lastModified);
+        mirror.setCheckedAt(now);
+        return mirror;
+    }
+
+    // 先写临时文件再原子改名，读者不会看到写了一半的文件；同一内容已存在时直接复用
+    void store(String hash, byte[] body) throws IOException {
+        Path target = path(hash);
+        if (Files.isRegularFile(target)) {
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), hash, ".tmp");
+        try {
+            Files.write(temp, body);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
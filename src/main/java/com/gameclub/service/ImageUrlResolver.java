@@ -0,0 +1,29 @@
+package com.gameclub.service;
+
+/**
+ * 构建快照时把原始图片URL解析为对外URL（本地镜像或缩略图）。
+ */
+interface ImageUrlResolver {
+    // 不做任何替换，只有原图
+    ImageUrlResolver NONE = new ImageUrlResolver() {
+        @Override
+        public int[] variantSizes() {
+            return new int[0];
+        }
+
+        @Override
+        public String resolve(String sourceUrl, int size) {
+            return null;
+        }
+    };
+
+    /**
+     * 可选的缩略图尺寸（像素），不含原图。
+     */
+    int[] variantSizes();
+
+    /**
+     * size 为 0 表示原图。没有本地镜像时返回 null，调用方使用原始URL。
+     */
+    String resolve(String sourceUrl, int size);
+}
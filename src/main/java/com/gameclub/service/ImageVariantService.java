@@ -0,0 +1,283 @@
+package com.gameclub.service;
+
+import com.gameclub.entity.ImageMirror;
+import com.gameclub.entity.ImageVariant;
+import com.gameclub.mapper.ImageVariantMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * 镜像图片的缩略图：每张原图按 variant-sizes 生成等比缩放、重新压缩的版本（不透明图为 JPEG，
+ * 带透明通道的为 PNG），与原图放在同一个按内容寻址的目录下。image_variant 表以 (原图哈希, 尺寸) 为键，
+ * 原图内容变化时哈希随之变化，因此只有新图片或变化过的图片需要处理。
+ */
+@Service
+public class ImageVariantService implements ImageUrlResolver {
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariantService.class);
+
+    @Autowired
+    private ImageVariantMapper imageVariantMapper;
+
+    @Autowired
+    private ImageMirrorService imageMirrorService;
+
+    @Value("${gameclub.images.variant-sizes:96,300}")
+    private int[] sizes;
+
+    @Value("${gameclub.images.variant-parallelism:0}")
+    private int parallelism;
+
+    @Value("${gameclub.images.jpeg-quality:0.82}")
+    private float jpegQuality;
+
+    private ForkJoinPool pool;
+
+    // 原图哈希 + "@" + 尺寸 -> 缩略图记录、缩略图哈希 -> 缩略图记录，整体替换，读取无锁
+    private volatile Map<String, ImageVariant> bySource;
+    private volatile Map<String, ImageVariant> byHash;
+
+    @PostConstruct
+    public void init() {
+        sizes = Arrays.stream(sizes).filter(size -> size > 0).distinct().sorted().toArray();
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Override
+    public int[] variantSizes() {
+        return sizes.clone();
+    }
+
+    /**
+     * 原始图片URL在指定尺寸下的本地URL：有缩略图时返回缩略图，否则返回镜像原图；未镜像时返回 null。
+     */
+    @Override
+    public String resolve(String sourceUrl, int size) {
+        ImageMirror mirror = imageMirrorService.findBySource(sourceUrl);
+        if (mirror == null) {
+            return null;
+        }
+        if (size > 0) {
+            ImageVariant variant = variants().get(key(mirror.getHash(), size));
+            if (variant != null) {
+                return imageMirrorService.url(variant.getHash());
+            }
+        }
+        return imageMirrorService.url(mirror.getHash());
+    }
+
+    /**
+     * 按哈希查找缩略图记录，不存在时返回 null。
+     */
+    public ImageVariant find(String hash) {
+        variants();
+        Map<String, ImageVariant> hashes = byHash;
+        return hashes != null ? hashes.get(hash) : null;
+    }
+
+    /**
+     * 为这些原始URL对应的镜像原图生成缺少的缩略图，在 fork-join 池中并行处理，返回新的记录（未写库）。
+     */
+    public List<ImageVariant> generate(Collection<String> sourceUrls) throws InterruptedException {
+        Map<String, ImageVariant> known = variants();
+        Set<String> sourceHashes = new LinkedHashSet<>();
+        for (String url : sourceUrls) {
+            ImageMirror mirror = imageMirrorService.findBySource(url);
+            if (mirror != null) {
+                sourceHashes.add(mirror.getHash());
+            }
+        }
+        List<Callable<List<ImageVariant>>> tasks = new ArrayList<>();
+        for (String sourceHash : sourceHashes) {
+            List<Integer> missing = new ArrayList<>();
+            for (int size : sizes) {
+                if (!known.containsKey(key(sourceHash, size))) {
+                    missing.add(size);
+                }
+            }
+            if (!missing.isEmpty()) {
+                // 同一张原图的各尺寸放在一个任务里，只解码一次
+                tasks.add(() -> generate(sourceHash, missing));
+            }
+        }
+        if (tasks.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<ImageVariant> generated = new ArrayList<>();
+        for (Future<List<ImageVariant>> future : pool.invokeAll(tasks)) {
+            try {
+                generated.addAll(future.get());
+            } catch (ExecutionException e) {
+                logger.warn("生成缩略图失败", e.getCause());
+            }
+        }
+        logger.info("缩略图生成完成：原图 {} 张，新增 {} 条", tasks.size(), generated.size());
+        return generated;
+    }
+
+    /**
+     * 保存缩略图记录，需要在调用方的事务内执行。
+     */
+    public void save(List<ImageVariant> variants) {
+        for (ImageVariant variant : variants) {
+            Map<String, Object> key = new HashMap<>();
+            key.put("source_hash", variant.getSourceHash());
+            key.put("size", variant.getSize());
+            imageVariantMapper.deleteByMap(key);
+            imageVariantMapper.insert(variant);
+        }
+    }
+
+    /**
+     * 从 image_variant 表重新加载映射。
+     */
+    public synchronized void refresh() {
+        Map<String, ImageVariant> sources = new HashMap<>();
+        Map<String, ImageVariant> hashes = new HashMap<>();
+        for (ImageVariant variant : imageVariantMapper.selectList(null)) {
+            sources.put(key(variant.getSourceHash(), variant.getSize()), variant);
+            hashes.put(variant.getHash(), variant);
+        }
+        byHash = hashes;
+        bySource = sources;
+    }
+
+    private Map<String, ImageVariant> variants() {
+        Map<String, ImageVariant> current = bySource;
+        if (current == null) {
+            // 首次访问时才加载，避免在 DatabaseInitializer 建表之前查询
+            synchronized (this) {
+                if (bySource == null) {
+                    try {
+                        refresh();
+                    } catch (Exception e) {
+                        logger.warn("加载缩略图记录失败", e);
+                        return Collections.emptyMap();
+                    }
+                }
+                current = bySource;
+            }
+        }
+        return current;
+    }
+
+    private List<ImageVariant> generate(String sourceHash, List<Integer> missing) throws IOException {
+        BufferedImage source = ImageIO.read(imageMirrorService.path(sourceHash).toFile());
+        List<ImageVariant> variants = new ArrayList<>();
+        for (int size : missing) {
+            ImageVariant variant = new ImageVariant();
+            variant.setSourceHash(sourceHash);
+            variant.setSize(size);
+            variant.setCreatedAt(LocalDateTime.now());
+            if (source == null || Math.max(source.getWidth(), source.getHeight()) <= size) {
+                // 无法解码（如 webp）或原图已不大于目标尺寸时直接使用原图，同样记录下来避免重复处理
+                ImageMirror mirror = imageMirrorService.find(sourceHash);
+                variant.setHash(sourceHash);
+                variant.setContentType(mirror != null ? mirror.getContentType() : null);
+                variant.setWidth(source != null ? source.getWidth() : null);
+                variant.setHeight(source != null ? source.getHeight() : null);
+                variant.setBytes(mirror != null ? mirror.getSize() : null);
+            } else {
+                boolean alpha = source.getColorModel().hasAlpha();
+                BufferedImage scaled = scale(source, size, alpha);
+                byte[] body = alpha ? encodePng(scaled) : encodeJpeg(scaled, jpegQuality);
+                String hash = Hashes.sha256Hex(body);
+                imageMirrorService.store(hash, body);
+                variant.setHash(hash);
+                variant.setContentType(alpha ? "image/png" : "image/jpeg");
+                variant.setWidth(scaled.getWidth());
+                variant.setHeight(scaled.getHeight());
+                variant.setBytes((long) body.length);
+            }
+            variants.add(variant);
+        }
+        return variants;
+    }
+
+    // 等比缩放到不超过 size x size；每次最多缩小一半，逐步缩放以减少双线性插值的锯齿
+    static BufferedImage scale(BufferedImage source, int size, boolean alpha) {
+        double ratio = (double) size / Math.max(source.getWidth(), source.getHeight());
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static String key(String sourceHash, int size) {
+        return sourceHash + "@" + size;
+    }
+}
@@ -0,0 +1,228 @@
+package com.gameclub.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 直接请求网站的抓取器，所有爬虫请求（页面和图片）共用一个实例：
+ * <ul>
+ *     <li>连接复用：响应体读完并关闭后，连接回到 JDK 的 keep-alive 缓存（http.maxConnections，默认每个主机 5 个），
+ *     同一主机的后续请求不再重新握手；</li>
+ *     <li>请求 gzip 压缩，响应在读取时解压，大小上限按解压后的字节计算，超过上限立即断开；</li>
+ *     <li>每个主机同时进行的请求数不超过 maxPerHost；</li>
+ *     <li>连接失败、超时以及 429/5xx 按指数退避重试，最多 maxAttempts 次，并受全局 {@link RetryBudget} 约束。</li>
+ * </ul>
+ */
+public class LivePageFetcher implements PageFetcher {
+    private static final Logger logger = LoggerFactory.getLogger(LivePageFetcher.class);
+
+    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36";
+
+    private static final int MAX_REDIRECTS = 5;
+
+    private final int maxPerHost;
+    private final int connectTimeoutMs;
+    private final int readTimeoutMs;
+    private final int maxAttempts;
+    private final long backoffMs;
+    private final long maxBackoffMs;
+    private final RetryBudget retryBudget;
+
+    // 主机（含端口） -> 并发许可
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+    public LivePageFetcher(int maxPerHost, int connectTimeoutMs, int readTimeoutMs,
+                           int maxAttempts, long backoffMs, long maxBackoffMs, RetryBudget retryBudget) {
+        if (maxPerHost <= 0 || maxAttempts <= 0) {
+            throw new IllegalArgumentException("maxPerHost 和 maxAttempts 必须大于 0");
+        }
+        this.maxPerHost = maxPerHost;
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+        this.maxAttempts = maxAttempts;
+        this.backoffMs = backoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.retryBudget = retryBudget;
+    }
+
+    @Override
+    public FetchResponse fetch(String url, Map<String, String> headers, int maxBytes) throws IOException {
+        retryBudget.recordRequest();
+        for (int attempt = 1; ; attempt++) {
+            long delay;
+            try {
+                FetchResponse response = followRedirects(url, headers, maxBytes);
+                if (!retryable(response.getStatusCode()) || !canRetry(attempt)) {
+                    return response;
+                }
+                delay = backoff(attempt, response.header("Retry-After"));
+                logger.warn("请求 {} 返回 HTTP {}，{}ms 后第 {} 次重试", url, response.getStatusCode(), delay, attempt);
+            } catch (IOException e) {
+                if (!retryable(e) || !canRetry(attempt)) {
+                    throw e;
+                }
+                delay = backoff(attempt, null);
+                logger.warn("请求 {} 失败（{}），{}ms 后第 {} 次重试", url, e.toString(), delay, attempt);
+            }
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("等待重试时被中断: " + url);
+            }
+        }
+    }
+
+    private boolean canRetry(int attempt) {
+        return attempt < maxAttempts && retryBudget.tryAcquire();
+    }
+
+    // 自行处理重定向：HttpURLConnection 不会跟随 http -> https 的跳转
+    private FetchResponse followRedirects(String url, Map<String, String> headers, int maxBytes) throws IOException {
+        URL current = new URL(url);
+        for (int hop = 0; ; hop++) {
+            FetchResponse response = exchange(url, current, headers, maxBytes);
+            String location = response.header("Location");
+            if (!redirect(response.getStatusCode()) || location == null) {
+                return response;
+            }
+            if (hop >= MAX_REDIRECTS) {
+                throw new IOException("重定向次数过多: " + url);
+            }
+            current = new URL(current, location);
+        }
+    }
+
+    // 一次请求：占用目标主机的许可，读完响应体后释放，连接交还 keep-alive 缓存
+    private FetchResponse exchange(String url, URL target, Map<String, String> headers, int maxBytes)
+            throws IOException {
+        Semaphore permits = hostPermits.computeIfAbsent(
+                target.getHost() + ":" + target.getPort(), k -> new Semaphore(maxPerHost, true));
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待主机并发许可时被中断: " + url);
+        }
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) target.openConnection();
+            connection.setInstanceFollowRedirects(false);
+            connection.setConnectTimeout(connectTimeoutMs);
+            connection.setReadTimeout(readTimeoutMs);
+            connection.setRequestProperty("User-Agent", USER_AGENT);
+            connection.setRequestProperty("Accept-Encoding", "gzip");
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                connection.setRequestProperty(header.getKey(), header.getValue());
+            }
+
+            int status = connection.getResponseCode();
+            Map<String, String> responseHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (Map.Entry<String, List<String>> header : connection.getHeaderFields().entrySet()) {
+                if (header.getKey() != null) {
+                    responseHeaders.put(header.getKey(), String.join(", ", header.getValue()));
+                }
+            }
+            // 304/204 没有响应体，即使带着 Content-Encoding 也不能按 gzip 读取
+            boolean gzip = "gzip".equalsIgnoreCase(responseHeaders.get("Content-Encoding"))
+                    && status != HttpURLConnection.HTTP_NOT_MODIFIED && status != HttpURLConnection.HTTP_NO_CONTENT;
+            if (gzip) {
+                // 返回的是解压后的内容，去掉与之不符的头，录制的 fixture 也保持一致
+                responseHeaders.remove("Content-Encoding");
+                responseHeaders.remove("Content-Length");
+            }
+
+            long declared = connection.getContentLengthLong();
+            if (!gzip && maxBytes > 0 && declared > maxBytes) {
+                throw new ResponseTooLargeException(url, maxBytes);
+            }
+            InputStream raw = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+            byte[] body = new byte[0];
+            if (raw != null) {
+                try (InputStream in = gzip ? new GZIPInputStream(raw) : raw) {
+                    body = readBody(url, in, declared, maxBytes);
+                }
+            }
+            FetchResponse response = new FetchResponse(url, status, responseHeaders, body);
+            connection = null;
+            return response;
+        } finally {
+            if (connection != null) {
+                // 异常或超过上限时连接里还有未读的数据，不能复用
+                connection.disconnect();
+            }
+            permits.release();
+        }
+    }
+
+    // 读完整个响应体：调用方需要完整的字节计算内容哈希、录制 fixture，读取中途失败时整次请求可以重试，
+    // 连接和主机许可也在解析之前就释放；内存占用受 maxBytes 限制，超过时立即中止
+    private static byte[] readBody(String url, InputStream in, long declared, int maxBytes) throws IOException {
+        long expected = declared > 0 ? declared : 8192;
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min(expected, maxBytes > 0 ? maxBytes : 1 << 20));
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            if (maxBytes > 0 && out.size() + read > maxBytes) {
+                throw new ResponseTooLargeException(url, maxBytes);
+            }
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    // 指数退避加随机抖动；服务端给出 Retry-After（秒）时以它为准，但不超过 maxBackoffMs
+    private long backoff(int attempt, String retryAfter) {
+        if (retryAfter != null) {
+            try {
+                return Math.min(maxBackoffMs, TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim())));
+            } catch (NumberFormatException ignored) {
+                // HTTP 日期格式的 Retry-After 按普通退避处理
+            }
+        }
+        long delay = Math.min(maxBackoffMs, backoffMs << Math.min(attempt - 1, 20));
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    private static boolean retryable(int status) {
+        return status == 429 || status == 500 || status == 502 || status == 503 || status == 504;
+    }
+
+    private static boolean retryable(IOException e) {
+        return !(e instanceof ResponseTooLargeException
+                || e instanceof UnknownHostException
+                || e instanceof MalformedURLException
+                || e instanceof InterruptedIOException && !(e instanceof SocketTimeoutException));
+    }
+
+    private static boolean redirect(int status) {
+        return status == 301 || status == 302 || status == 303 || status == 307 || status == 308;
+    }
+
+    /**
+     * 响应体超过大小上限，不重试。
+     */
+    static class ResponseTooLargeException extends IOException {
+        ResponseTooLargeException(String url, int maxBytes) {
+            super("响应体超过 " + maxBytes + " 字节: " + url);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.gameclub.service;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * 单次生成请求的抽取条件，按条目名称指定，对各分类分别生效：
+ * include 中有属于该分类的名称时只在这些条目里抽取；exclude 中的条目不会被抽到；
+ * favorites 中的条目权重乘以 favoriteBoost。
+ */
+public final class LoadoutFilter {
+    public static final double DEFAULT_FAVORITE_BOOST = 3.0;
+
+    public static final LoadoutFilter NONE = new LoadoutFilter(null, null, null, DEFAULT_FAVORITE_BOOST);
+
+    private final Set<String> include;
+    private final Set<String> exclude;
+    private final Set<String> favorites;
+    private final double favoriteBoost;
+
+    public LoadoutFilter(Set<String> include, Set<String> exclude, Set<String> favorites, double favoriteBoost) {
+        this.include = include != null ? include : Collections.emptySet();
+        this.exclude = exclude != null ? exclude : Collections.emptySet();
+        this.favorites = favorites != null ? favorites : Collections.emptySet();
+        this.favoriteBoost = favoriteBoost;
+    }
+
+    public Set<String> getInclude() {
+        return include;
+    }
+
+    public Set<String> getExclude() {
+        return exclude;
+    }
+
+    public Set<String> getFavorites() {
+        return favorites;
+    }
+
+    public double getFavoriteBoost() {
+        return favoriteBoost;
+    }
+
+    public boolean isEmpty() {
+        return include.isEmpty() && exclude.isEmpty() && favorites.isEmpty();
+    }
+}
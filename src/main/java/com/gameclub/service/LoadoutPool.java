@@ -0,0 +1,360 @@
+package com.gameclub.service;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.gameclub.entity.GameData;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 某个游戏某个分类（如三角洲干员）的不可变抽取池。
+ * 条目按下标编号，权重抽取使用 Walker 别名表，单次抽取 O(1)；
+ * 排除、限定、偏好等请求级条件以下标位图（long[]）表示，抽取时按位判断。
+ * 每个条目的图片URL（含占位图）和对应的 JSON 片段在构建时按图片尺寸（原图及各缩略图尺寸）一次性生成，
+ * 请求时直接复用。
+ */
+public final class LoadoutPool {
+    static final LoadoutPool EMPTY = new LoadoutPool("", new GameData[0], ImageUrlResolver.NONE);
+
+    // 图片尺寸槽位 0 为原图
+    public static final int ORIGINAL_SLOT = 0;
+
+    private static final Map<String, byte[]> NULL_FRAGMENTS = new ConcurrentHashMap<>();
+
+    private static final String PLACEHOLDER_URL = "https://via.placeholder.com/300x300?text=";
+
+    // 拒绝采样的最大尝试次数，超过后改为按位图线性扫描
+    private static final int MAX_REJECTIONS = 32;
+
+    private final String dataType;
+    private final GameData[] items;
+    private final int[] imageSizes;
+    private final String[][] imageUrls;
+    private final byte[][][] fragments;
+    private final double[] weights;
+    private final double[] probability;
+    private final int[] alias;
+    private final long[] allMask;
+    private final Map<String, Integer> indexByName;
+
+    /**
+     * images 把原始图片URL解析为各尺寸的本地URL，没有镜像时使用原始URL。
+     */
+    LoadoutPool(String dataType, GameData[] items, ImageUrlResolver images) {
+        int size = items.length;
+        this.dataType = dataType;
+        this.items = items;
+        int[] variantSizes = images.variantSizes();
+        this.imageSizes = new int[variantSizes.length + 1];
+        System.arraycopy(variantSizes, 0, imageSizes, 1, variantSizes.length);
+        this.imageUrls = new String[imageSizes.length][size];
+        this.fragments = new byte[imageSizes.length][size][];
+        this.weights = new double[size];
+        this.probability = new double[size];
+        this.alias = new int[size];
+        this.allMask = new long[words(size)];
+        Map<String, Integer> index = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            Double weight = items[i].getWeight();
+            // 未设置权重按 1 处理，权重不大于 0 的条目不参与抽取
+            weights[i] = weight == null ? 1.0 : Math.max(weight, 0.0);
+            index.put(items[i].getName(), i);
+            String sourceUrl = sourceImageUrl(items[i]);
+            for (int slot = 0; slot < imageSizes.length; slot++) {
+                String localUrl = images.resolve(sourceUrl, imageSizes[slot]);
+                imageUrls[slot][i] = localUrl != null ? localUrl : sourceUrl;
+                fragments[slot][i] = fragment(dataType, items[i].getName(), imageUrls[slot][i]);
+            }
+            if (weights[i] > 0) {
+                set(allMask, i);
+            }
+        }
+        this.indexByName = Collections.unmodifiableMap(index);
+        buildAliasTable();
+    }
+
+    public int size() {
+        return items.length;
+    }
+
+    public String getDataType() {
+        return dataType;
+    }
+
+    public GameData get(int index) {
+        return items[index];
+    }
+
+    /**
+     * 图片尺寸对应的槽位，0 或不支持的尺寸返回 ORIGINAL_SLOT。
+     */
+    public int imageSlot(int imageSize) {
+        for (int slot = 1; slot < imageSizes.length; slot++) {
+            if (imageSizes[slot] == imageSize) {
+                return slot;
+            }
+        }
+        return ORIGINAL_SLOT;
+    }
+
+    /**
+     * 条目的展示图片URL（原图），已镜像时为本地URL，数据库中没有时为占位图。
+     */
+    public String imageUrl(int index) {
+        return imageUrls[ORIGINAL_SLOT][index];
+    }
+
+    /**
+     * 条目预先编码的 UTF-8 JSON 片段（原图），形如 "map":"名称","mapImage":"URL"，调用方不得修改。
+     */
+    public byte[] fragment(int index) {
+        return fragments[ORIGINAL_SLOT][index];
+    }
+
+    /**
+     * 指定图片尺寸槽位（见 {@link #imageSlot}）的 JSON 片段，调用方不得修改。
+     */
+    public byte[] fragment(int index, int slot) {
+        return fragments[slot][index];
+    }
+
+    /**
+     * 分类没有抽到条目时输出的 JSON 片段。
+     */
+    public static byte[] nullFragment(String dataType) {
+        return NULL_FRAGMENTS.computeIfAbsent(dataType,
+                type -> utf8("\"" + type + "\":null,\"" + type + "Image\":null"));
+    }
+
+    /**
+     * 名称集合对应的下标位图；集合中没有属于本池的名称时返回 null。
+     */
+    public long[] mask(Collection<String> names) {
+        if (names == null || names.isEmpty()) {
+            return null;
+        }
+        long[] mask = null;
+        for (String name : names) {
+            Integer index = indexByName.get(name);
+            if (index != null) {
+                if (mask == null) {
+                    mask = new long[allMask.length];
+                }
+                set(mask, index);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * 根据过滤条件计算可抽取的下标位图。返回的数组可能与池内共享，调用方如需修改应先复制。
+     */
+    public long[] allowed(LoadoutFilter filter) {
+        if (filter == null || filter.isEmpty()) {
+            return allMask;
+        }
+        long[] include = mask(filter.getInclude());
+        long[] exclude = mask(filter.getExclude());
+        if (include == null && exclude == null) {
+            return allMask;
+        }
+        long[] allowed = include != null ? include : allMask.clone();
+        for (int w = 0; w < allowed.length; w++) {
+            allowed[w] &= allMask[w];
+            if (exclude != null) {
+                allowed[w] &= ~exclude[w];
+            }
+        }
+        return allowed;
+    }
+
+    /**
+     * 按权重抽取一个下标，池为空时返回 -1。
+     */
+    public int sample(ThreadLocalRandom random) {
+        return sample(random, allMask, null, 1.0);
+    }
+
+    /**
+     * 在 allowed 位图内按权重抽取一个下标，favorites 中的条目权重乘以 boost。
+     * 先用别名表做拒绝采样（期望 O(1)），可选集合太小导致多次拒绝时退化为一次线性扫描。
+     * 没有可抽取条目时返回 -1。
+     */
+    public int sample(ThreadLocalRandom random, long[] allowed, long[] favorites, double boost) {
+        if (items.length == 0) {
+            return -1;
+        }
+        boolean boosted = favorites != null && boost > 1.0;
+        for (int attempt = 0; attempt < MAX_REJECTIONS; attempt++) {
+            int column = random.nextInt(items.length);
+            int index = random.nextDouble() < probability[column] ? column : alias[column];
+            if (!get(allowed, index)) {
+                continue;
+            }
+            // 非偏好条目以 1/boost 的概率接受，等价于偏好条目权重乘以 boost
+            if (boosted && !get(favorites, index) && random.nextDouble() * boost >= 1.0) {
+                continue;
+            }
+            return index;
+        }
+        return scan(random, allowed, boosted ? favorites : null, boost);
+    }
+
+    private int scan(ThreadLocalRandom random, long[] allowed, long[] favorites, double boost) {
+        double total = 0;
+        for (int i = nextSetBit(allowed, 0); i >= 0; i = nextSetBit(allowed, i + 1)) {
+            total += effectiveWeight(i, favorites, boost);
+        }
+        if (total <= 0) {
+            return -1;
+        }
+        double target = random.nextDouble() * total;
+        int last = -1;
+        for (int i = nextSetBit(allowed, 0); i >= 0; i = nextSetBit(allowed, i + 1)) {
+            target -= effectiveWeight(i, favorites, boost);
+            last = i;
+            if (target < 0) {
+                return i;
+            }
+        }
+        return last;
+    }
+
+    private double effectiveWeight(int index, long[] favorites, double boost) {
+        return favorites != null && get(favorites, index) ? weights[index] * boost : weights[index];
+    }
+
+    private static String sourceImageUrl(GameData gameData) {
+        if (gameData.getImageUrl() != null && !gameData.getImageUrl().isEmpty()) {
+            return gameData.getImageUrl();
+        }
+        // 如果没有设置图片URL，生成一个占位图片URL（URL编码中文名称）
+        try {
+            return PLACEHOLDER_URL + URLEncoder.encode(gameData.getName(), StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            return PLACEHOLDER_URL + gameData.getName();
+        }
+    }
+
+    private static byte[] fragment(String dataType, String name, String imageUrl) {
+        JsonStringEncoder encoder = JsonStringEncoder.getInstance();
+        StringBuilder json = new StringBuilder();
+        json.append('"').append(dataType).append("\":\"");
+        json.append(encoder.quoteAsString(name));
+        json.append("\",\"").append(dataType).append("Image\":");
+        if (imageUrl == null) {
+            json.append("null");
+        } else {
+            json.append('"').append(encoder.quoteAsString(imageUrl)).append('"');
+        }
+        return utf8(json.toString());
+    }
+
+    static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Vose 版本的别名表构建，O(n)
+    private void buildAliasTable() {
+        int size = items.length;
+        if (size == 0) {
+            return;
+        }
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        if (total <= 0) {
+            // 所有权重都为 0 时 allMask 为空，别名表内容不会被采用
+            for (int i = 0; i < size; i++) {
+                probability[i] = 1.0;
+                alias[i] = i;
+            }
+            return;
+        }
+
+        double[] scaled = new double[size];
+        ArrayDeque<Integer> small = new ArrayDeque<>();
+        ArrayDeque<Integer> large = new ArrayDeque<>();
+        for (int i = 0; i < size; i++) {
+            scaled[i] = weights[i] * size / total;
+            if (scaled[i] < 1.0) {
+                small.push(i);
+            } else {
+                large.push(i);
+            }
+        }
+        while (!small.isEmpty() && !large.isEmpty()) {
+            int less = small.pop();
+            int more = large.pop();
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1.0;
+            if (scaled[more] < 1.0) {
+                small.push(more);
+            } else {
+                large.push(more);
+            }
+        }
+        while (!large.isEmpty()) {
+            int index = large.pop();
+            probability[index] = 1.0;
+            alias[index] = index;
+        }
+        while (!small.isEmpty()) {
+            int index = small.pop();
+            probability[index] = 1.0;
+            alias[index] = index;
+        }
+    }
+
+    static int words(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    static void set(long[] mask, int index) {
+        mask[index >>> 6] |= 1L << index;
+    }
+
+    static void clear(long[] mask, int index) {
+        mask[index >>> 6] &= ~(1L << index);
+    }
+
+    static boolean get(long[] mask, int index) {
+        return (mask[index >>> 6] & (1L << index)) != 0;
+    }
+
+    static boolean isEmpty(long[] mask) {
+        for (long word : mask) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int nextSetBit(long[] mask, int from) {
+        int w = from >>> 6;
+        if (w >= mask.length) {
+            return -1;
+        }
+        long word = mask[w] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++w == mask.length) {
+                return -1;
+            }
+            word = mask[w];
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package com.gameclub.service;
+
+import com.gameclub.entity.Room;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 快速匹配：每个游戏类型一个匹配池。没有积分的玩家按到达顺序两两配对；带积分的玩家与积分差在窗口内、
+ * 最早到达的玩家配对，窗口随等待时间放宽（rating-window + window-growth * 已等待秒数，双方的窗口都要满足）。
+ * 入队只是向池的无锁队列追加一张票，不同玩家、不同游戏类型之间没有共享的锁；
+ * 配对由一个 "matchmaker-" 线程完成，池内的排队结构只由这个线程访问。
+ * 配对成功后通过 {@link RoomService#createMatchedRoom} 直接创建游戏中的房间（先到的玩家为房主），
+ * 并向双方的 /queue/match/{userId} 发送 {"type": "matched", "data": {...}}；
+ * 超过 max-wait-ms 仍未配对的玩家移出队列并收到 {"type": "timeout"}。
+ */
+@Service
+public class MatchmakingService {
+    private static final Logger logger = LoggerFactory.getLogger(MatchmakingService.class);
+
+    private static final int WAITING = 0;
+    // 匹配线程正在与另一张票配对，取消需要等它完成
+    private static final int CLAIMED = 1;
+    private static final int MATCHED = 2;
+    private static final int CANCELLED = 3;
+
+    public static final int MAX_RATING = 100000;
+
+    @Autowired
+    private RoomService roomService;
+
+    // 基准测试等没有消息代理的环境中为 null，此时只创建房间
+    @Autowired(required = false)
+    private SimpMessageSendingOperations messagingTemplate;
+
+    @Value("${gameclub.match.rating-window:100}")
+    private int ratingWindow;
+
+    @Value("${gameclub.match.window-growth:10}")
+    private int windowGrowth;
+
+    @Value("${gameclub.match.max-wait-ms:300000}")
+    private long maxWaitMs;
+
+    @Value("${gameclub.match.tick-ms:1000}")
+    private long tickMs;
+
+    private final ConcurrentMap<String, Pool> pools = new ConcurrentHashMap<>();
+    // 用户 -> 排队中的票，同一用户同时只能排一个队
+    private final ConcurrentMap<String, Ticket> tickets = new ConcurrentHashMap<>();
+    private final AtomicLong arrivals = new AtomicLong();
+    private ScheduledExecutorService matcher;
+
+    @PostConstruct
+    public void init() {
+        matcher = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("matchmaker-"));
+        matcher.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        matcher.shutdownNow();
+    }
+
+    /**
+     * 加入匹配队列，rating 为 null 时按到达顺序配对。
+     * 游戏类型不支持或积分不在 0-MAX_RATING 之间时抛出 IllegalArgumentException，已在队列中时抛出 RuntimeException。
+     */
+    public void enqueue(String gameType, String userId, String userName, Integer rating) {
+        RoomRegistry.gameTypeCode(gameType);
+        if (rating != null && (rating < 0 || rating > MAX_RATING)) {
+            throw new IllegalArgumentException("积分超出范围: " + rating);
+        }
+        Ticket ticket = new Ticket(gameType, userId, userName, rating, arrivals.incrementAndGet(),
+                System.currentTimeMillis());
+        if (tickets.putIfAbsent(userId, ticket) != null) {
+            throw new RuntimeException("已在匹配队列中");
+        }
+        Pool pool = pools.computeIfAbsent(gameType, k -> new Pool(gameType));
+        pool.incoming.add(ticket);
+        schedule(pool);
+    }
+
+    /**
+     * 退出匹配队列。已经配对成功或不在队列中时返回 false。
+     */
+    public boolean cancel(String userId) {
+        Ticket ticket = tickets.get(userId);
+        if (ticket == null) {
+            return false;
+        }
+        while (true) {
+            int state = ticket.state.get();
+            if (state == CLAIMED) {
+                Thread.yield();
+            } else if (state != WAITING) {
+                return false;
+            } else if (ticket.state.compareAndSet(WAITING, CANCELLED)) {
+                // 匹配池中的票在之后遇到或下一次 tick 时清理
+                tickets.remove(userId, ticket);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 用户的排队状态：{"status": "queued", "gameType", "waitedMs"} 或 {"status": "idle"}。
+     */
+    public Map<String, Object> status(String userId) {
+        Map<String, Object> status = new HashMap<>();
+        Ticket ticket = tickets.get(userId);
+        if (ticket == null || ticket.state.get() == CANCELLED) {
+            status.put("status", "idle");
+        } else {
+            status.put("status", "queued");
+            status.put("gameType", ticket.gameType);
+            status.put("waitedMs", System.currentTimeMillis() - ticket.enqueuedAt);
+        }
+        return status;
+    }
+
+    /**
+     * 当前排队中的人数。
+     */
+    public int queued() {
+        return tickets.size();
+    }
+
+    // 池中有新票且没有排队的处理任务时提交一个；处理任务结束后再检查一次，不会漏掉并发加入的票
+    private void schedule(Pool pool) {
+        if (pool.draining.compareAndSet(false, true)) {
+            matcher.execute(() -> drain(pool));
+        }
+    }
+
+    private void drain(Pool pool) {
+        try {
+            Ticket ticket;
+            while ((ticket = pool.incoming.poll()) != null) {
+                if (ticket.state.get() != WAITING) {
+                    // 进入匹配池之前已取消
+                    continue;
+                }
+                if (ticket.rating == null) {
+                    matchInOrder(pool, ticket);
+                } else {
+                    matchByRating(pool, ticket, System.currentTimeMillis());
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("匹配失败: {}", pool.gameType, e);
+        } finally {
+            pool.draining.set(false);
+        }
+        if (!pool.incoming.isEmpty()) {
+            schedule(pool);
+        }
+    }
+
+    private void matchInOrder(Pool pool, Ticket ticket) {
+        Ticket first;
+        while ((first = pool.inOrder.peekFirst()) != null) {
+            if (pair(pool, first, ticket)) {
+                pool.inOrder.pollFirst();
+                return;
+            }
+            if (ticket.state.get() != WAITING) {
+                return;
+            }
+            // 队首已取消
+            pool.inOrder.pollFirst();
+        }
+        pool.inOrder.addLast(ticket);
+    }
+
+    private void matchByRating(Pool pool, Ticket ticket, long now) {
+        if (!tryMatch(pool, ticket, now) && ticket.state.get() == WAITING) {
+            pool.byRating.add(ticket);
+            pool.byArrival.add(ticket);
+        }
+    }
+
+    // 为 ticket 找一个对手并配对，ticket 可以已在池中；配对成功或 ticket 已取消时从池中移除
+    private boolean tryMatch(Pool pool, Ticket ticket, long now) {
+        Ticket partner;
+        while ((partner = findPartner(pool, ticket, now)) != null) {
+            boolean partnerFirst = partner.seq < ticket.seq;
+            if (pair(pool, partnerFirst ? partner : ticket, partnerFirst ? ticket : partner)) {
+                pool.remove(partner);
+                pool.remove(ticket);
+                return true;
+            }
+            if (ticket.state.get() != WAITING) {
+                pool.remove(ticket);
+                return false;
+            }
+            pool.remove(partner);
+        }
+        return false;
+    }
+
+    // 双方窗口都满足的候选中最早到达的一个；顺带清理已取消的票
+    private Ticket findPartner(Pool pool, Ticket ticket, long now) {
+        int window = window(ticket, now);
+        Ticket best = null;
+        Iterator<Ticket> candidates = pool.byRating.subSet(
+                Ticket.probe(ticket.rating - window, Long.MIN_VALUE), true,
+                Ticket.probe(ticket.rating + window, Long.MAX_VALUE), true).iterator();
+        while (candidates.hasNext()) {
+            Ticket candidate = candidates.next();
+            if (candidate.state.get() != WAITING) {
+                candidates.remove();
+                pool.byArrival.remove(candidate);
+            } else if (candidate != ticket
+                    && Math.abs(candidate.rating - ticket.rating) <= window(candidate, now)
+                    && (best == null || candidate.seq < best.seq)) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private int window(Ticket ticket, long now) {
+        long waitedSeconds = (now - ticket.enqueuedAt) / 1000;
+        return (int) Math.min(MAX_RATING, ratingWindow + windowGrowth * waitedSeconds);
+    }
+
+    // host 先到、guest 后到；任一方已取消时返回 false，另一方保持排队
+    private boolean pair(Pool pool, Ticket host, Ticket guest) {
+        if (!host.state.compareAndSet(WAITING, CLAIMED)) {
+            return false;
+        }
+        if (!guest.state.compareAndSet(WAITING, MATCHED)) {
+            host.state.set(WAITING);
+            return false;
+        }
+        host.state.set(MATCHED);
+        tickets.remove(host.userId, host);
+        tickets.remove(guest.userId, guest);
+
+        Room room;
+        try {
+            room = roomService.createMatchedRoom(pool.gameType, host.userId, host.userName,
+                    guest.userId, guest.userName);
+        } catch (RuntimeException e) {
+            logger.warn("匹配成功但创建房间失败: {} / {}", host.userId, guest.userId, e);
+            notify(host.userId, "match_failed", failure(pool.gameType, e));
+            notify(guest.userId, "match_failed", failure(pool.gameType, e));
+            return true;
+        }
+        notify(host.userId, "matched", matched(room, "host", guest));
+        notify(guest.userId, "matched", matched(room, "guest", host));
+        return true;
+    }
+
+    // 放宽带积分玩家的窗口后重新配对，并移出等待超时的玩家
+    private void tick() {
+        try {
+            long now = System.currentTimeMillis();
+            for (Pool pool : pools.values()) {
+                expire(pool, now);
+                // 按到达顺序，先等的玩家先挑选对手；已在本轮配对的票跳过
+                for (Ticket ticket : new ArrayList<>(pool.byArrival)) {
+                    if (pool.byArrival.contains(ticket)) {
+                        tryMatch(pool, ticket, now);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("匹配检查失败", e);
+        }
+    }
+
+    private void expire(Pool pool, long now) {
+        pool.inOrder.removeIf(ticket -> expired(ticket, now));
+        Iterator<Ticket> rated = pool.byArrival.iterator();
+        while (rated.hasNext()) {
+            Ticket ticket = rated.next();
+            if (expired(ticket, now)) {
+                rated.remove();
+                pool.byRating.remove(ticket);
+            }
+        }
+    }
+
+    // 已取消的票直接清理；等待超时的票取消后通知玩家
+    private boolean expired(Ticket ticket, long now) {
+        if (ticket.state.get() != WAITING) {
+            return true;
+        }
+        if (now - ticket.enqueuedAt < maxWaitMs || !ticket.state.compareAndSet(WAITING, CANCELLED)) {
+            return false;
+        }
+        tickets.remove(ticket.userId, ticket);
+        Map<String, Object> data = new HashMap<>();
+        data.put("gameType", ticket.gameType);
+        notify(ticket.userId, "timeout", data);
+        return true;
+    }
+
+    private void notify(String userId, String type, Map<String, Object> data) {
+        if (messagingTemplate == null) {
+            return;
+        }
+        Map<String, Object> message = new HashMap<>();
+        message.put("type", type);
+        message.put("data", data);
+        messagingTemplate.convertAndSend("/queue/match/" + userId, message);
+    }
+
+    private static Map<String, Object> matched(Room room, String role, Ticket opponent) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("room", room);
+        data.put("role", role);
+        data.put("opponentId", opponent.userId);
+        data.put("opponentName", opponent.userName);
+        return data;
+    }
+
+    private static Map<String, Object> failure(String gameType, RuntimeException e) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("gameType", gameType);
+        data.put("error", e.getMessage());
+        return data;
+    }
+
+    private static final class Pool {
+        final String gameType;
+        final ConcurrentLinkedQueue<Ticket> incoming = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean draining = new AtomicBoolean();
+        // 以下只由匹配线程访问
+        final ArrayDeque<Ticket> inOrder = new ArrayDeque<>();
+        final NavigableSet<Ticket> byRating = new TreeSet<>(Ticket.BY_RATING);
+        final LinkedHashSet<Ticket> byArrival = new LinkedHashSet<>();
+
+        Pool(String gameType) {
+            this.gameType = gameType;
+        }
+
+        void remove(Ticket ticket) {
+            byRating.remove(ticket);
+            byArrival.remove(ticket);
+        }
+    }
+
+    private static final class Ticket {
+        static final Comparator<Ticket> BY_RATING = (a, b) -> {
+            int byRating = Integer.compare(a.rating, b.rating);
+            return byRating != 0 ? byRating : Long.compare(a.seq, b.seq);
+        };
+
+        final String gameType;
+        final String userId;
+        final String userName;
+        final Integer rating;
+        final long seq;
+        final long enqueuedAt;
+        final AtomicInteger state = new AtomicInteger(WAITING);
+
+        Ticket(String gameType, String userId, String userName, Integer rating, long seq, long enqueuedAt) {
+            this.gameType = gameType;
+            this.userId = userId;
+            this.userName = userName;
+            this.rating = rating;
+            this.seq = seq;
+            this.enqueuedAt = enqueuedAt;
+        }
+
+        // 积分区间查询的边界
+        static Ticket probe(int rating, long seq) {
+            return new Ticket(null, null, null, rating, seq, 0);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.gameclub.service;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * 爬虫的 HTTP 抓取入口。实现有三种模式（gameclub.crawler.fetch-mode）：
+ * live 直接请求网站；record 请求网站并把原始响应和响应头写入 fixtures 目录；
+ * replay 只从 fixtures 目录读取，不访问网络，用于离线的基准测试和回归测试。
+ * 非 2xx/304 的状态码不会抛出异常，由调用方判断。
+ */
+public interface PageFetcher {
+    String LIVE = "live";
+    String RECORD = "record";
+    String REPLAY = "replay";
+
+    /**
+     * headers 为额外的请求头（如 If-None-Match），maxBytes 为响应体大小上限，0 表示不限制。
+     */
+    FetchResponse fetch(String url, Map<String, String> headers, int maxBytes) throws IOException;
+}
@@ -0,0 +1,144 @@
+package com.gameclub.service;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
+import org.jsoup.select.QueryParser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 解析后页面的一次性索引：遍历一遍 DOM，按标签、class、自身文本归类元素，
+ * 并记录每个元素内第一个 img / p 后代。各 extract 方法从索引取候选元素，
+ * 再用预编译的选择器（{@link #compile}）过滤，不再对整个文档反复执行 select。
+ * 列表均保持文档顺序。
+ */
+final class PageIndex {
+    private static final String[] FIRST_DESCENDANT_TAGS = {"img", "p"};
+
+    private final Map<String, List<Element>> byTag = new HashMap<>();
+    private final Map<String, List<Element>> byClass = new HashMap<>();
+    private final Map<String, List<Element>> byOwnText = new HashMap<>();
+    private final List<Element> classed = new ArrayList<>();
+    private final Map<String, Map<Element, Element>> firstDescendant = new HashMap<>();
+
+    private PageIndex() {
+        for (String tag : FIRST_DESCENDANT_TAGS) {
+            firstDescendant.put(tag, new IdentityHashMap<>());
+        }
+    }
+
+    static PageIndex of(Document doc) {
+        PageIndex index = new PageIndex();
+        NodeTraversor.traverse(new NodeVisitor() {
+            @Override
+            public void head(Node node, int depth) {
+                if (node instanceof Element) {
+                    index.add((Element) node);
+                }
+            }
+        }, doc);
+        return index;
+    }
+
+    /**
+     * 编译选择器。Evaluator 无状态，可在线程间共享，应保存为静态常量。
+     */
+    static Evaluator compile(String query) {
+        return QueryParser.parse(query);
+    }
+
+    private void add(Element element) {
+        String tag = element.normalName();
+        byTag.computeIfAbsent(tag, k -> new ArrayList<>()).add(element);
+
+        if (element.hasAttr("class")) {
+            classed.add(element);
+            for (String className : element.classNames()) {
+                byClass.computeIfAbsent(className, k -> new ArrayList<>()).add(element);
+            }
+        }
+
+        String ownText = element.ownText().trim();
+        if (!ownText.isEmpty()) {
+            byOwnText.computeIfAbsent(ownText, k -> new ArrayList<>()).add(element);
+        }
+
+        Map<Element, Element> first = firstDescendant.get(tag);
+        if (first != null) {
+            // 按文档顺序访问，祖先一旦已有记录，更上层的祖先也必然已有，可以停止
+            for (Element ancestor = element.parent(); ancestor != null; ancestor = ancestor.parent()) {
+                if (first.putIfAbsent(ancestor, element) != null) {
+                    break;
+                }
+            }
+        }
+    }
+
+    List<Element> tag(String tag) {
+        return byTag.getOrDefault(tag, Collections.emptyList());
+    }
+
+    List<Element> withClass(String className) {
+        return byClass.getOrDefault(className, Collections.emptyList());
+    }
+
+    /**
+     * 所有带 class 属性的元素，用于 [class*=...] 这类无法按单个 class 定位的选择器。
+     */
+    List<Element> classed() {
+        return classed;
+    }
+
+    /**
+     * 自身文本（不含子元素文本，去除首尾空白）等于 text 的元素。
+     */
+    List<Element> withOwnText(String text) {
+        return byOwnText.getOrDefault(text, Collections.emptyList());
+    }
+
+    /**
+     * ancestor 内按文档顺序的第一个 img 或 p 后代，没有时返回 null。
+     */
+    Element firstDescendant(Element ancestor, String tag) {
+        Map<Element, Element> first = firstDescendant.get(tag);
+        if (first == null) {
+            throw new IllegalArgumentException("未索引的标签: " + tag);
+        }
+        return first.get(ancestor);
+    }
+
+    /**
+     * 从候选元素中保留匹配选择器的元素，保持原有顺序。
+     */
+    static List<Element> filter(List<Element> candidates, Evaluator evaluator) {
+        List<Element> matched = new ArrayList<>();
+        for (Element element : candidates) {
+            if (element.is(evaluator)) {
+                matched.add(element);
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * element 是否位于 ancestors 中某个元素之内。
+     */
+    static boolean hasAncestorIn(Element element, Set<Element> ancestors) {
+        for (Element parent = element.parent(); parent != null; parent = parent.parent()) {
+            if (ancestors.contains(parent)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
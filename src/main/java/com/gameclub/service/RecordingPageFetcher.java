@@ -0,0 +1,33 @@
+package com.gameclub.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * 请求网站并把每次的原始响应写入 fixtures 目录，供 replay 模式使用。
+ */
+public class RecordingPageFetcher implements PageFetcher {
+    private static final Logger logger = LoggerFactory.getLogger(RecordingPageFetcher.class);
+
+    private final PageFetcher delegate;
+    private final FixtureStore store;
+
+    public RecordingPageFetcher(PageFetcher delegate, FixtureStore store) {
+        this.delegate = delegate;
+        this.store = store;
+    }
+
+    @Override
+    public FetchResponse fetch(String url, Map<String, String> headers, int maxBytes) throws IOException {
+        FetchResponse response = delegate.fetch(url, headers, maxBytes);
+        // 304 没有响应体，保留之前录制的完整响应
+        if (response.getStatusCode() != 304) {
+            store.save(response);
+            logger.debug("已录制: {}", response);
+        }
+        return response;
+    }
+}
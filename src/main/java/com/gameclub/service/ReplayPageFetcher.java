@@ -0,0 +1,33 @@
+package com.gameclub.service;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * 只从 fixtures 目录读取录制的响应，不访问网络。请求带 If-None-Match 且与录制的 ETag 相同时返回 304，
+ * 以便离线验证条件请求的处理。没有录制的 URL 抛出 FileNotFoundException。
+ */
+public class ReplayPageFetcher implements PageFetcher {
+    private final FixtureStore store;
+
+    public ReplayPageFetcher(FixtureStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public FetchResponse fetch(String url, Map<String, String> headers, int maxBytes) throws IOException {
+        FetchResponse recorded = store.load(url);
+        if (recorded == null) {
+            throw new FileNotFoundException("没有录制的响应: " + url);
+        }
+        String etag = recorded.header("ETag");
+        if (etag != null && etag.equals(headers.get("If-None-Match"))) {
+            return new FetchResponse(url, 304, recorded.getHeaders(), null);
+        }
+        if (maxBytes > 0 && recorded.getBody().length > maxBytes) {
+            throw new IOException("响应体超过 " + maxBytes + " 字节: " + url);
+        }
+        return recorded;
+    }
+}
@@ -0,0 +1,60 @@
+package com.gameclub.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 全局重试预算：每个请求存入 ratio 个令牌，每次重试取走一个，余额不超过 capacity。
+ * 网站整体故障时重试次数被限制在请求数的 ratio 倍左右（外加最初的 capacity 次），
+ * 不会因为每个请求都重试满而把流量放大数倍。
+ */
+public class RetryBudget {
+    // 以千分之一个令牌为单位，避免浮点数的 CAS
+    private static final long UNIT = 1000;
+
+    private final long capacity;
+    private final long deposit;
+    private final AtomicLong balance;
+
+    public RetryBudget(int capacity, double ratio) {
+        if (capacity < 0 || ratio < 0) {
+            throw new IllegalArgumentException("重试预算参数不能为负数");
+        }
+        this.capacity = capacity * UNIT;
+        this.deposit = Math.round(ratio * UNIT);
+        this.balance = new AtomicLong(this.capacity);
+    }
+
+    /**
+     * 记录一个新请求（不含重试），按比例补充令牌。
+     */
+    public void recordRequest() {
+        long current;
+        do {
+            current = balance.get();
+            if (current >= capacity) {
+                return;
+            }
+        } while (!balance.compareAndSet(current, Math.min(capacity, current + deposit)));
+    }
+
+    /**
+     * 尝试为一次重试取走令牌，预算不足时返回 false。
+     */
+    public boolean tryAcquire() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < UNIT) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - UNIT));
+        return true;
+    }
+
+    /**
+     * 当前可用的重试次数。
+     */
+    public int available() {
+        return (int) (balance.get() / UNIT);
+    }
+}
@@ -0,0 +1,173 @@
+package com.gameclub.service;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 6 位房间代码（000000-999999）的分配器。每个代码占位图中的一位，共 15625 个 long，约 122KB。
+ * 分配时从随机位置开始找一个空位并用 CAS 占用，不同线程通常落在不同的字上，互不竞争；
+ * 占用率不高时几乎总能在第一个字里找到空位。释放的代码先隔离 quarantineMs，期间不会分配给新房间，
+ * 避免还拿着旧代码的客户端误入新房间；隔离到期的代码在之后的分配中顺带回收。
+ */
+public class RoomCodeAllocator {
+    public static final int CAPACITY = 1000000;
+
+    private static final int WORDS = (CAPACITY + 63) / 64;
+
+    private final AtomicLongArray bits = new AtomicLongArray(WORDS);
+    private final AtomicInteger used = new AtomicInteger();
+    private final long quarantineMs;
+    // 隔离期相同，按释放顺序排队即按到期时间排序
+    private final ConcurrentLinkedQueue<Quarantined> quarantine = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock reclaimLock = new ReentrantLock();
+
+    public RoomCodeAllocator(long quarantineMs) {
+        if (quarantineMs < 0) {
+            throw new IllegalArgumentException("隔离时间不能为负数");
+        }
+        this.quarantineMs = quarantineMs;
+        // 最后一个字中超出范围的位预先占用
+        int tail = CAPACITY % 64;
+        if (tail != 0) {
+            bits.set(WORDS - 1, -1L << tail);
+        }
+    }
+
+    /**
+     * 分配一个空闲代码，代码全部占用时抛出 IllegalStateException。
+     */
+    public String allocate() {
+        reclaim(System.currentTimeMillis());
+        if (used.incrementAndGet() > CAPACITY) {
+            used.decrementAndGet();
+            throw new IllegalStateException("房间代码已用完");
+        }
+        int start = ThreadLocalRandom.current().nextInt(WORDS);
+        for (int i = 0; ; i++) {
+            int index = (start + i) % WORDS;
+            long word = bits.get(index);
+            while (word != -1L) {
+                long free = ~word & (word + 1); // 最低的空位
+                if (bits.compareAndSet(index, word, word | free)) {
+                    return format(index * 64 + Long.numberOfTrailingZeros(free));
+                }
+                word = bits.get(index);
+            }
+            // used 计数保证一定有空位，其他线程刚释放的位会在下一轮遇到
+        }
+    }
+
+    /**
+     * 占用指定代码（启动时登记已有房间），已占用或格式不对时返回 false。
+     */
+    public boolean reserve(String code) {
+        int value = parse(code);
+        if (value < 0) {
+            return false;
+        }
+        int index = value >>> 6;
+        long bit = 1L << value;
+        long word;
+        do {
+            word = bits.get(index);
+            if ((word & bit) != 0) {
+                return false;
+            }
+        } while (!bits.compareAndSet(index, word, word | bit));
+        used.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * 释放代码，隔离期过后才能再次分配。
+     */
+    public void release(String code) {
+        int value = parse(code);
+        if (value < 0) {
+            return;
+        }
+        if (quarantineMs == 0) {
+            clear(value);
+        } else {
+            quarantine.add(new Quarantined(value, System.currentTimeMillis() + quarantineMs));
+        }
+    }
+
+    /**
+     * 已占用（含隔离中）的代码数。
+     */
+    public int used() {
+        return used.get();
+    }
+
+    public int quarantined() {
+        return quarantine.size();
+    }
+
+    // 回收到期的隔离代码；已有线程在回收时直接跳过
+    private void reclaim(long now) {
+        Quarantined head = quarantine.peek();
+        if (head == null || head.releaseAt > now || !reclaimLock.tryLock()) {
+            return;
+        }
+        try {
+            while ((head = quarantine.peek()) != null && head.releaseAt <= now) {
+                quarantine.poll();
+                clear(head.code);
+            }
+        } finally {
+            reclaimLock.unlock();
+        }
+    }
+
+    private void clear(int value) {
+        int index = value >>> 6;
+        long bit = 1L << value;
+        long word;
+        do {
+            word = bits.get(index);
+            if ((word & bit) == 0) {
+                return;
+            }
+        } while (!bits.compareAndSet(index, word, word & ~bit));
+        used.decrementAndGet();
+    }
+
+    private static String format(int value) {
+        char[] digits = new char[6];
+        for (int i = 5; i >= 0; i--) {
+            digits[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return new String(digits);
+    }
+
+    // 不是 6 位数字时返回 -1
+    private static int parse(String code) {
+        if (code == null || code.length() != 6) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < 6; i++) {
+            char c = code.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static final class Quarantined {
+        final int code;
+        final long releaseAt;
+
+        Quarantined(int code, long releaseAt) {
+            this.code = code;
+            this.releaseAt = releaseAt;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.gameclub.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 房间空闲超时。所有房间放在一个哈希时间轮里（wheel-size 个槽，每 tick-ms 前进一格），
+ * 不需要周期性地扫描全部房间：每一格只处理落在这一格、这一圈到期的房间。
+ * 房间有活动时只更新 {@link RoomRegistry.LiveRoom#touch()} 的时间戳，不移动时间轮中的条目；
+ * 条目到期时再按最后活动时间和当前状态的超时（waiting-ms / playing-ms）判断，
+ * 还没到期就按剩余时间重新放回，真正空闲的房间结束（状态 finished，写库时移入 rooms_archive），
+ * 并向 /topic/room/{roomCode} 通知房间内的玩家。
+ * 时间轮只由一个线程推进；其他线程登记的房间先进入队列，在下一次推进时放入对应的槽。
+ */
+@Service
+public class RoomExpiry implements RoomRegistry.Listener {
+    private static final Logger logger = LoggerFactory.getLogger(RoomExpiry.class);
+
+    @Autowired
+    private RoomRegistry roomRegistry;
+
+    // 基准测试等没有消息代理的环境中为 null，此时只结束房间
+    @Autowired(required = false)
+    private SimpMessageSendingOperations messagingTemplate;
+
+    @Value("${gameclub.rooms.idle-timeout.waiting-ms:1800000}")
+    private long waitingTimeoutMs;
+
+    @Value("${gameclub.rooms.idle-timeout.playing-ms:3600000}")
+    private long playingTimeoutMs;
+
+    @Value("${gameclub.rooms.expiry.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${gameclub.rooms.expiry.wheel-size:512}")
+    private int wheelSize;
+
+    private Entry[] wheel;
+    private int mask;
+    private long startedAt;
+    private long tick;
+    // 已在时间轮（或待放入队列）中的房间，避免每次状态变化都重复登记
+    private final Set<Long> scheduled = ConcurrentHashMap.newKeySet();
+    private final ConcurrentLinkedQueue<RoomRegistry.LiveRoom> incoming = new ConcurrentLinkedQueue<>();
+    private ScheduledExecutorService ticker;
+
+    @PostConstruct
+    public void init() {
+        int size = Integer.highestOneBit(Math.max(2, wheelSize) * 2 - 1);
+        wheel = new Entry[size];
+        mask = size - 1;
+        startedAt = System.currentTimeMillis();
+        roomRegistry.addListener(this);
+        ticker = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("room-expiry-"));
+        ticker.scheduleAtFixedRate(this::advance, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    @Override
+    public void roomChanged(RoomRegistry.LiveRoom room) {
+        if (room.getState().isLive() && scheduled.add(room.getId())) {
+            incoming.add(room);
+        }
+    }
+
+    /**
+     * 当前在时间轮中的房间数。
+     */
+    public int size() {
+        return scheduled.size();
+    }
+
+    // 推进到当前时间对应的格子；线程被延迟时一次补上落下的格子
+    private void advance() {
+        try {
+            long target = (System.currentTimeMillis() - startedAt) / tickMs;
+            while (tick < target) {
+                tick++;
+                drainIncoming();
+                expireSlot((int) (tick & mask));
+            }
+        } catch (Exception e) {
+            logger.warn("房间超时检查失败", e);
+        }
+    }
+
+    private void drainIncoming() {
+        RoomRegistry.LiveRoom room;
+        while ((room = incoming.poll()) != null) {
+            schedule(room);
+        }
+    }
+
+    private void expireSlot(int slot) {
+        Entry entry = wheel[slot];
+        wheel[slot] = null;
+        while (entry != null) {
+            Entry next = entry.next;
+            if (entry.deadlineTick > tick) {
+                // 还没到这一圈，放回原槽
+                entry.next = wheel[slot];
+                wheel[slot] = entry;
+            } else {
+                schedule(entry.room);
+            }
+            entry = next;
+        }
+    }
+
+    // 按最后活动时间计算到期时间：未到期则放入对应的槽，已到期则结束房间
+    private void schedule(RoomRegistry.LiveRoom room) {
+        RoomRegistry.State state = room.getState();
+        if (!state.isLive()) {
+            scheduled.remove(room.getId());
+            return;
+        }
+        long timeout = state.getStatus() == RoomRegistry.WAITING ? waitingTimeoutMs : playingTimeoutMs;
+        long deadline = room.getLastActiveAt() + timeout;
+        long deadlineTick = (deadline - startedAt + tickMs - 1) / tickMs;
+        if (deadlineTick > tick) {
+            int slot = (int) (deadlineTick & mask);
+            wheel[slot] = new Entry(room, deadlineTick, wheel[slot]);
+        } else if (!expire(room, state)) {
+            // 状态刚好被改变（加入、离开等），按新状态重新计算
+            schedule(room);
+        }
+    }
+
+    private boolean expire(RoomRegistry.LiveRoom room, RoomRegistry.State state) {
+        RoomRegistry.State finished = new RoomRegistry.State(
+                RoomRegistry.FINISHED, state.getGuestId(), state.getGuestName(), LocalDateTime.now());
+        if (!roomRegistry.transition(room, state, finished)) {
+            return false;
+        }
+        scheduled.remove(room.getId());
+        logger.info("房间 {} 空闲超时，已结束", room.getCode());
+        if (messagingTemplate != null) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("roomCode", room.getCode());
+            data.put("previousStatus", state.getStatus() == RoomRegistry.WAITING ? "waiting" : "playing");
+            Map<String, Object> message = new HashMap<>();
+            message.put("type", "room_expired");
+            message.put("data", data);
+            messagingTemplate.convertAndSend("/topic/room/" + room.getCode(), message);
+        }
+        return true;
+    }
+
+    private static final class Entry {
+        final RoomRegistry.LiveRoom room;
+        final long deadlineTick;
+        Entry next;
+
+        Entry(RoomRegistry.LiveRoom room, long deadlineTick, Entry next) {
+            this.room = room;
+            this.deadlineTick = deadlineTick;
+            this.next = next;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.gameclub.service;
+
+import com.gameclub.entity.Room;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 等待中房间的大厅索引：每个游戏类型一个按创建时间从新到旧排序的跳表，另有一个包含所有类型的索引。
+ * 分页使用游标（上一页最后一个房间的创建时间和 id），翻页时房间的加入、离开不会造成重复或遗漏。
+ * 房间进入或离开大厅时，通过 STOMP 向 /topic/lobby/{gameType} 和 /topic/lobby/all 推送增量：
+ * {"type": "added" | "removed", "seq": n, "room": {...}}，removed 时 room.status 说明是已满（playing）还是已关闭。
+ * seq 在每个主题内递增，客户端发现不连续时重新拉取第一页即可。
+ */
+@Service
+public class RoomLobby implements RoomRegistry.Listener {
+    public static final String ALL = "all";
+
+    public static final int MAX_LIMIT = 100;
+
+    @Autowired
+    private RoomRegistry roomRegistry;
+
+    // 基准测试等没有消息代理的环境中为 null，此时只维护索引
+    @Autowired(required = false)
+    private SimpMessageSendingOperations messagingTemplate;
+
+    private final Map<String, Lobby> lobbies = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        roomRegistry.addListener(this);
+    }
+
+    /**
+     * 按当前状态调整房间在大厅中的位置。同一房间的调整串行进行，最后一次调整一定看到最后一次变化后的状态。
+     */
+    @Override
+    public void roomChanged(RoomRegistry.LiveRoom room) {
+        Key key = new Key(room);
+        synchronized (room) {
+            boolean waiting = room.getState().getStatus() == RoomRegistry.WAITING;
+            Lobby lobby = lobby(room.getGameType());
+            boolean changed = waiting
+                    ? lobby.rooms.put(key, room) == null
+                    : lobby.rooms.remove(key) != null;
+            if (!changed) {
+                return;
+            }
+            Lobby all = lobby(ALL);
+            if (waiting) {
+                all.rooms.put(key, room);
+            } else {
+                all.rooms.remove(key);
+            }
+            String type = waiting ? "added" : "removed";
+            publish(room.getGameType(), lobby, type, room);
+            publish(ALL, all, type, room);
+        }
+    }
+
+    /**
+     * 大厅中的一页房间，从新到旧。gameType 为 null 或 all 时包含所有游戏类型；
+     * cursor 为上一页返回的 nextCursor，null 表示第一页。游标格式不对时抛出 IllegalArgumentException。
+     */
+    public Map<String, Object> page(String gameType, String cursor, int limit) {
+        if (gameType != null && !ALL.equals(gameType)) {
+            RoomRegistry.gameTypeCode(gameType);
+        }
+        roomRegistry.load();
+        Lobby lobby = lobby(gameType == null ? ALL : gameType);
+        int size = Math.max(1, Math.min(limit, MAX_LIMIT));
+        long seq = lobby.seq.get();
+        ConcurrentNavigableMap<Key, RoomRegistry.LiveRoom> view = cursor == null
+                ? lobby.rooms
+                : lobby.rooms.tailMap(Key.parse(cursor), false);
+
+        List<Room> rooms = new ArrayList<>(size);
+        Key last = null;
+        Iterator<Map.Entry<Key, RoomRegistry.LiveRoom>> entries = view.entrySet().iterator();
+        while (entries.hasNext() && rooms.size() < size) {
+            Map.Entry<Key, RoomRegistry.LiveRoom> entry = entries.next();
+            rooms.add(entry.getValue().toRoom());
+            last = entry.getKey();
+        }
+        Map<String, Object> page = new HashMap<>();
+        page.put("rooms", rooms);
+        page.put("nextCursor", entries.hasNext() && last != null ? last.toCursor() : null);
+        page.put("seq", seq);
+        return page;
+    }
+
+    /**
+     * 大厅中的全部房间，从新到旧。
+     */
+    public List<Room> all() {
+        roomRegistry.load();
+        List<Room> rooms = new ArrayList<>();
+        for (RoomRegistry.LiveRoom room : lobby(ALL).rooms.values()) {
+            rooms.add(room.toRoom());
+        }
+        return rooms;
+    }
+
+    private Lobby lobby(String gameType) {
+        return lobbies.computeIfAbsent(gameType, k -> new Lobby());
+    }
+
+    private void publish(String gameType, Lobby lobby, String type, RoomRegistry.LiveRoom room) {
+        long seq = lobby.seq.incrementAndGet();
+        if (messagingTemplate == null) {
+            return;
+        }
+        Map<String, Object> message = new HashMap<>();
+        message.put("type", type);
+        message.put("seq", seq);
+        message.put("room", room.toRoom());
+        messagingTemplate.convertAndSend("/topic/lobby/" + gameType, message);
+    }
+
+    private static final class Lobby {
+        final ConcurrentSkipListMap<Key, RoomRegistry.LiveRoom> rooms = new ConcurrentSkipListMap<>();
+        final AtomicLong seq = new AtomicLong();
+    }
+
+    /**
+     * 排序键：创建时间（微秒）从新到旧，相同时按 id 从大到小。
+     */
+    static final class Key implements Comparable<Key> {
+        final long createdMicros;
+        final long id;
+
+        Key(long createdMicros, long id) {
+            this.createdMicros = createdMicros;
+            this.id = id;
+        }
+
+        Key(RoomRegistry.LiveRoom room) {
+            this(room.getCreatedAt().toEpochSecond(ZoneOffset.UTC) * 1000000L
+                    + room.getCreatedAt().getNano() / 1000, room.getId());
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int byTime = Long.compare(other.createdMicros, createdMicros);
+            return byTime != 0 ? byTime : Long.compare(other.id, id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).createdMicros == createdMicros && ((Key) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(createdMicros) * 31 + Long.hashCode(id);
+        }
+
+        String toCursor() {
+            return Long.toString(createdMicros, 36) + "." + Long.toString(id, 36);
+        }
+
+        static Key parse(String cursor) {
+            int dot = cursor.indexOf('.');
+            try {
+                return new Key(Long.parseLong(cursor.substring(0, dot), 36), Long.parseLong(cursor.substring(dot + 1), 36));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("无效的分页游标: " + cursor);
+            }
+        }
+    }
+}
@@ -0,0 +1,451 @@
+package com.gameclub.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.gameclub.entity.Room;
+import com.gameclub.mapper.RoomMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * 进行中房间的权威状态，按房间代码保存在内存中。房间状态的变化都是对 {@link LiveRoom} 的一次 CAS，
+ * 两个客人同时加入同一个房间时只有一个能成功。房间代码由 {@link RoomCodeAllocator} 分配，关闭的房间代码隔离
+ * code-quarantine-ms 后才会复用。数据库只是持久化副本：
+ * 变化的房间记入待写集合，由后台线程按 flush-interval-ms 合并后分批写入（一个事务内先删除、再 INSERT OR REPLACE），
+ * 同一房间在一个周期内的多次变化只写一次。应用正常关闭时写完剩余的变化；进程异常退出会丢失最后一个周期内的变化。
+ * 第一次访问时从 rooms 表加载未结束的房间。
+ */
+@Service
+public class RoomRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(RoomRegistry.class);
+
+    public static final byte WAITING = 0;
+    public static final byte PLAYING = 1;
+    // 已结束（超时等），从注册表移除，数据库中移入 rooms_archive
+    public static final byte FINISHED = 2;
+    // 已关闭（房主离开），从注册表移除，数据库中删除
+    public static final byte CLOSED = 3;
+
+    private static final String[] STATUS_NAMES = {"waiting", "playing", "finished", "closed"};
+    private static final String[] GAME_TYPES = {"wuziqi", "weiqi", "xiangqi"};
+
+    private static final String UPSERT_SQL =
+            "INSERT OR REPLACE INTO rooms (id, room_code, game_type, host_id, host_name, guest_id, guest_name, " +
+            "status, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_SQL = "DELETE FROM rooms WHERE id = ?";
+    private static final String ARCHIVE_SQL =
+            "INSERT OR REPLACE INTO rooms_archive (id, room_code, game_type, host_id, host_name, guest_id, guest_name, " +
+            "status, created_at, updated_at, archived_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private RoomMapper roomMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${gameclub.rooms.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${gameclub.rooms.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    @Value("${gameclub.rooms.code-quarantine-ms:300000}")
+    private long codeQuarantineMs;
+
+    private volatile ConcurrentMap<String, LiveRoom> rooms;
+    // 房间 id -> 待写入的房间；按 id 而不是代码记录，代码被新房间复用时旧房间的删除不会被覆盖
+    private final ConcurrentMap<Long, LiveRoom> dirty = new ConcurrentHashMap<>();
+    private ScheduledExecutorService writer;
+    private TransactionTemplate transactionTemplate;
+    private RoomCodeAllocator codes;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    @PostConstruct
+    public void init() {
+        codes = new RoomCodeAllocator(codeQuarantineMs);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        writer = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("room-writer-"));
+        writer.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+    }
+
+    /**
+     * 注册房间变化的监听器，应在 @PostConstruct 中调用，之后加载的房间也会通知到。
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 加载数据库中未结束的房间，只在第一次访问时执行。
+     */
+    public int load() {
+        return rooms().size();
+    }
+
+    public LiveRoom get(String roomCode) {
+        LiveRoom room = rooms().get(roomCode);
+        return room != null && room.state.isLive() ? room : null;
+    }
+
+    public Collection<LiveRoom> all() {
+        return rooms().values();
+    }
+
+    /**
+     * 为新房间分配一个当前没有房间使用、也不在隔离期内的代码。
+     */
+    public String allocateCode() {
+        rooms();
+        return codes.allocate();
+    }
+
+    /**
+     * 登记新房间；代码已被占用时返回 false，由调用方换一个代码重试。
+     */
+    public boolean register(LiveRoom room) {
+        if (rooms().putIfAbsent(room.code, room) != null) {
+            return false;
+        }
+        markDirty(room);
+        notifyListeners(room);
+        return true;
+    }
+
+    /**
+     * 把房间的状态从 expected 替换为 update，同时算作一次活动。失败说明状态已被其他请求修改，
+     * 调用方应重新读取后决定是否重试。进入已关闭或已结束状态的房间从注册表移除，代码进入隔离期。
+     */
+    public boolean transition(LiveRoom room, State expected, State update) {
+        if (!LiveRoom.STATE.compareAndSet(room, expected, update)) {
+            return false;
+        }
+        room.touch();
+        if (!update.isLive() && rooms().remove(room.code, room)) {
+            codes.release(room.code);
+        }
+        markDirty(room);
+        notifyListeners(room);
+        return true;
+    }
+
+    private void markDirty(LiveRoom room) {
+        dirty.put(room.id, room);
+    }
+
+    private void notifyListeners(LiveRoom room) {
+        for (Listener listener : listeners) {
+            try {
+                listener.roomChanged(room);
+            } catch (RuntimeException e) {
+                logger.warn("房间 {} 的变化通知失败", room.code, e);
+            }
+        }
+    }
+
+    private ConcurrentMap<String, LiveRoom> rooms() {
+        ConcurrentMap<String, LiveRoom> loaded = rooms;
+        if (loaded == null) {
+            synchronized (this) {
+                loaded = rooms;
+                if (loaded == null) {
+                    loaded = new ConcurrentHashMap<>();
+                    QueryWrapper<Room> wrapper = new QueryWrapper<>();
+                    wrapper.ne("status", STATUS_NAMES[FINISHED]);
+                    for (Room row : roomMapper.selectList(wrapper)) {
+                        LiveRoom room = LiveRoom.of(row);
+                        if (room != null) {
+                            loaded.put(room.code, room);
+                            codes.reserve(room.code);
+                        }
+                    }
+                    logger.info("已加载 {} 个进行中的房间", loaded.size());
+                    rooms = loaded;
+                    for (LiveRoom room : loaded.values()) {
+                        notifyListeners(room);
+                    }
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.warn("房间写入数据库失败，稍后重试", e);
+        }
+    }
+
+    /**
+     * 把待写的房间写入数据库，返回写入的房间数。写入失败时这些房间重新记为待写。
+     */
+    public int flush() {
+        synchronized (dirty) {
+            return flushPending();
+        }
+    }
+
+    private int flushPending() {
+        int written = 0;
+        while (!dirty.isEmpty()) {
+            List<LiveRoom> batch = new ArrayList<>(Math.min(dirty.size(), flushBatchSize));
+            Iterator<LiveRoom> pending = dirty.values().iterator();
+            while (pending.hasNext() && batch.size() < flushBatchSize) {
+                batch.add(pending.next());
+                // 先移出再读取状态：读取之后的变化会重新记为待写，不会丢失
+                pending.remove();
+            }
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                for (LiveRoom room : batch) {
+                    dirty.putIfAbsent(room.id, room);
+                }
+                throw e;
+            }
+            written += batch.size();
+        }
+        return written;
+    }
+
+    private void write(List<LiveRoom> batch) {
+        List<Object[]> deletes = new ArrayList<>();
+        List<Object[]> upserts = new ArrayList<>();
+        List<Object[]> archives = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (LiveRoom room : batch) {
+            State state = room.state;
+            if (state.status == FINISHED) {
+                archives.add(new Object[]{room.id, room.code, room.getGameType(), room.hostId, room.hostName,
+                        state.guestId, state.guestName, STATUS_NAMES[state.status], room.createdAt, state.updatedAt, now});
+            }
+            if (!state.isLive()) {
+                deletes.add(new Object[]{room.id});
+            } else {
+                upserts.add(new Object[]{room.id, room.code, room.getGameType(), room.hostId, room.hostName,
+                        state.guestId, state.guestName, STATUS_NAMES[state.status], room.createdAt, state.updatedAt});
+            }
+        }
+        transactionTemplate.execute(status -> {
+            if (!archives.isEmpty()) {
+                jdbcTemplate.batchUpdate(ARCHIVE_SQL, archives);
+            }
+            if (!deletes.isEmpty()) {
+                jdbcTemplate.batchUpdate(DELETE_SQL, deletes);
+            }
+            if (!upserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPSERT_SQL, upserts);
+            }
+            return null;
+        });
+        logger.debug("房间写入数据库：更新 {} 个，删除 {} 个（归档 {} 个）", upserts.size(), deletes.size(), archives.size());
+    }
+
+    /**
+     * 游戏类型的紧凑编码，不支持的类型抛出 IllegalArgumentException。
+     */
+    public static byte gameTypeCode(String gameType) {
+        for (int i = 0; i < GAME_TYPES.length; i++) {
+            if (GAME_TYPES[i].equals(gameType)) {
+                return (byte) i;
+            }
+        }
+        throw new IllegalArgumentException("不支持的游戏类型: " + gameType);
+    }
+
+    private static byte statusCode(String status) {
+        for (int i = 0; i < STATUS_NAMES.length; i++) {
+            if (STATUS_NAMES[i].equals(status)) {
+                return (byte) i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 房间登记或状态变化后调用，在完成变化的线程上同步执行。同一房间的通知可能并发、乱序到达，
+     * 监听器应以房间的当前状态为准，而不是推断出的前后变化。
+     */
+    public interface Listener {
+        void roomChanged(LiveRoom room);
+    }
+
+    /**
+     * 房间中会变化的部分，不可变；每次变化替换为新的实例。
+     */
+    public static final class State {
+        final byte status;
+        final String guestId;
+        final String guestName;
+        final LocalDateTime updatedAt;
+
+        public State(byte status, String guestId, String guestName, LocalDateTime updatedAt) {
+            this.status = status;
+            this.guestId = guestId;
+            this.guestName = guestName;
+            this.updatedAt = updatedAt;
+        }
+
+        public byte getStatus() {
+            return status;
+        }
+
+        /**
+         * 等待中或游戏中；已关闭、已结束的房间不再接受任何操作。
+         */
+        public boolean isLive() {
+            return status == WAITING || status == PLAYING;
+        }
+
+        public String getGuestId() {
+            return guestId;
+        }
+
+        public String getGuestName() {
+            return guestName;
+        }
+    }
+
+    /**
+     * 一个进行中的房间。创建后不变的字段直接保存，状态通过 {@link #transition} 整体替换。
+     */
+    public static final class LiveRoom {
+        static final AtomicReferenceFieldUpdater<LiveRoom, State> STATE =
+                AtomicReferenceFieldUpdater.newUpdater(LiveRoom.class, State.class, "state");
+
+        final long id;
+        final String code;
+        final byte gameType;
+        final String hostId;
+        final String hostName;
+        final LocalDateTime createdAt;
+        volatile State state;
+        // 最近一次活动（状态变化、落子等）的时间，空闲超时以此计算
+        volatile long lastActiveAt = System.currentTimeMillis();
+
+        public LiveRoom(long id, String code, byte gameType, String hostId, String hostName,
+                        LocalDateTime createdAt, State state) {
+            this.id = id;
+            this.code = code;
+            this.gameType = gameType;
+            this.hostId = hostId;
+            this.hostName = hostName;
+            this.createdAt = createdAt;
+            this.state = state;
+        }
+
+        // 数据库中的行；游戏类型或状态无法识别时返回 null，不加载
+        static LiveRoom of(Room row) {
+            byte status = statusCode(row.getStatus());
+            byte gameType;
+            try {
+                gameType = gameTypeCode(row.getGameType());
+            } catch (IllegalArgumentException e) {
+                gameType = -1;
+            }
+            if (status < 0 || gameType < 0 || row.getId() == null) {
+                logger.warn("忽略无法识别的房间: {} ({}, {})", row.getRoomCode(), row.getGameType(), row.getStatus());
+                return null;
+            }
+            LiveRoom room = new LiveRoom(row.getId(), row.getRoomCode(), gameType, row.getHostId(), row.getHostName(),
+                    row.getCreatedAt(), new State(status, row.getGuestId(), row.getGuestName(), row.getUpdatedAt()));
+            // 重启前的最后活动时间不可知，按最后一次状态变化计算，长期无人的房间启动后很快就会过期
+            if (row.getUpdatedAt() != null) {
+                room.lastActiveAt = Math.min(room.lastActiveAt,
+                        row.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            }
+            return room;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public long getLastActiveAt() {
+            return lastActiveAt;
+        }
+
+        /**
+         * 记录一次活动，推迟空闲超时。只写一个 volatile 字段，不写数据库。
+         */
+        public void touch() {
+            lastActiveAt = System.currentTimeMillis();
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public String getGameType() {
+            return GAME_TYPES[gameType];
+        }
+
+        public String getHostId() {
+            return hostId;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        /**
+         * 当前状态的 Room 副本，供接口返回。
+         */
+        public Room toRoom() {
+            State current = state;
+            Room room = new Room();
+            room.setId(id);
+            room.setRoomCode(code);
+            room.setGameType(getGameType());
+            room.setHostId(hostId);
+            room.setHostName(hostName);
+            room.setGuestId(current.guestId);
+            room.setGuestName(current.guestName);
+            room.setStatus(STATUS_NAMES[current.status]);
+            room.setCreatedAt(createdAt);
+            room.setUpdatedAt(current.updatedAt);
+            return room;
+        }
+    }
+}
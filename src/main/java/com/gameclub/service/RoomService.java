@@ -1,102 +1,150 @@
 package com.gameclub.service;
 
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
 import com.gameclub.entity.Room;
-import com.gameclub.mapper.RoomMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
-import java.util.UUID;
+import java.util.Map;
 
+/**
+ * 房间的创建、加入和离开。房间状态以 {@link RoomRegistry} 中的内存副本为准，
+ * 每个操作都是对单个房间状态的 CAS，不访问数据库；持久化由 RoomRegistry 在后台批量完成。
+ */
 @Service
 public class RoomService {
     private static final Logger logger = LoggerFactory.getLogger(RoomService.class);
-    private final Random random = new Random();
 
     @Autowired
-    private RoomMapper roomMapper;
+    private RoomRegistry roomRegistry;
+
+    @Autowired
+    private RoomLobby roomLobby;
+
+    @Autowired
+    private RoomUserIndex roomUserIndex;
 
-    @Transactional
     public Room createRoom(String gameType, String hostId, String hostName) {
-        Room room = new Room();
-        room.setRoomCode(generateRoomCode());
-        room.setGameType(gameType);
-        room.setHostId(hostId);
-        room.setHostName(hostName);
-        room.setStatus("waiting");
-        room.setCreatedAt(LocalDateTime.now());
-        room.setUpdatedAt(LocalDateTime.now());
-
-        roomMapper.insert(room);
-        logger.info("创建房间: {} - 游戏类型: {}", room.getRoomCode(), gameType);
-        return room;
+        RoomRegistry.LiveRoom room = register(gameType, hostId, hostName, RoomRegistry.WAITING, null, null);
+        logger.info("创建房间: {} - 游戏类型: {}", room.getCode(), gameType);
+        return room.toRoom();
+    }
+
+    /**
+     * 为匹配成功的两名玩家创建房间：房间注册时已是游戏中状态，不会出现在大厅里，也不会被其他玩家加入。
+     */
+    public Room createMatchedRoom(String gameType, String hostId, String hostName, String guestId, String guestName) {
+        RoomRegistry.LiveRoom room = register(gameType, hostId, hostName, RoomRegistry.PLAYING, guestId, guestName);
+        logger.info("匹配成功，创建房间: {} - 游戏类型: {} - 玩家: {} / {}", room.getCode(), gameType, hostName, guestName);
+        return room.toRoom();
     }
 
-    @Transactional
     public Room joinRoom(String roomCode, String guestId, String guestName) {
-        Room room = roomMapper.findByRoomCode(roomCode);
+        RoomRegistry.LiveRoom room = roomRegistry.get(roomCode);
         if (room == null) {
             throw new RuntimeException("房间不存在");
         }
-        if (!"waiting".equals(room.getStatus())) {
-            throw new RuntimeException("房间已满或已开始");
-        }
         if (room.getHostId().equals(guestId)) {
             throw new RuntimeException("不能加入自己创建的房间");
         }
-
-        room.setGuestId(guestId);
-        room.setGuestName(guestName);
-        room.setStatus("playing");
-        room.setUpdatedAt(LocalDateTime.now());
-        roomMapper.updateById(room);
+        RoomRegistry.State current;
+        do {
+            current = room.getState();
+            if (!current.isLive()) {
+                throw new RuntimeException("房间不存在");
+            }
+            if (current.getStatus() != RoomRegistry.WAITING) {
+                throw new RuntimeException("房间已满或已开始");
+            }
+        } while (!roomRegistry.transition(room, current,
+                new RoomRegistry.State(RoomRegistry.PLAYING, guestId, guestName, LocalDateTime.now())));
 
         logger.info("加入房间: {} - 玩家: {}", roomCode, guestName);
-        return room;
+        return room.toRoom();
     }
 
     public Room getRoom(String roomCode) {
-        return roomMapper.findByRoomCode(roomCode);
+        RoomRegistry.LiveRoom room = roomRegistry.get(roomCode);
+        return room != null ? room.toRoom() : null;
+    }
+
+    /**
+     * 记录房间内的活动（落子等），推迟空闲超时。房间不存在时忽略。
+     */
+    public void touch(String roomCode) {
+        RoomRegistry.LiveRoom room = roomCode != null ? roomRegistry.get(roomCode) : null;
+        if (room != null) {
+            room.touch();
+        }
     }
 
     public List<Room> getWaitingRooms() {
-        return roomMapper.findWaitingRooms();
+        return roomLobby.all();
+    }
+
+    /**
+     * 大厅分页，见 {@link RoomLobby#page}。
+     */
+    public Map<String, Object> getLobby(String gameType, String cursor, int limit) {
+        return roomLobby.page(gameType, cursor, limit);
     }
 
     public List<Room> getUserRooms(String userId) {
-        return roomMapper.findUserRooms(userId);
+        return toRooms(roomUserIndex.rooms(userId));
     }
 
-    @Transactional
     public void leaveRoom(String roomCode, String userId) {
-        Room room = roomMapper.findByRoomCode(roomCode);
+        RoomRegistry.LiveRoom room = roomRegistry.get(roomCode);
         if (room == null) {
             return;
         }
 
         if (room.getHostId().equals(userId)) {
-            // 房主离开，删除房间
-            roomMapper.deleteById(room.getId());
+            // 房主离开，关闭房间
+            RoomRegistry.State current;
+            do {
+                current = room.getState();
+                if (!current.isLive()) {
+                    return;
+                }
+            } while (!roomRegistry.transition(room, current, new RoomRegistry.State(
+                    RoomRegistry.CLOSED, current.getGuestId(), current.getGuestName(), LocalDateTime.now())));
             logger.info("房主离开，删除房间: {}", roomCode);
-        } else if (userId.equals(room.getGuestId())) {
-            // 客人离开，重置房间状态
-            room.setGuestId(null);
-            room.setGuestName(null);
-            room.setStatus("waiting");
-            room.setUpdatedAt(LocalDateTime.now());
-            roomMapper.updateById(room);
+            return;
+        }
+        // 客人离开，重置房间状态；状态已变化（例如房间已关闭、客人已换人）时不再处理
+        RoomRegistry.State current = room.getState();
+        if (current.isLive() && userId.equals(current.getGuestId())
+                && roomRegistry.transition(room, current,
+                new RoomRegistry.State(RoomRegistry.WAITING, null, null, LocalDateTime.now()))) {
             logger.info("客人离开，重置房间: {}", roomCode);
         }
     }
 
-    private String generateRoomCode() {
-        // 生成6位随机房间代码
-        return String.format("%06d", random.nextInt(1000000));
+    // 代码分配与注册之间代码被占用（启动加载的旧房间）时换一个代码重试
+    private RoomRegistry.LiveRoom register(String gameType, String hostId, String hostName,
+                                           byte status, String guestId, String guestName) {
+        byte type = RoomRegistry.gameTypeCode(gameType);
+        LocalDateTime now = LocalDateTime.now();
+        RoomRegistry.State state = new RoomRegistry.State(status, guestId, guestName, now);
+        RoomRegistry.LiveRoom room;
+        do {
+            room = new RoomRegistry.LiveRoom(IdWorker.getId(), roomRegistry.allocateCode(), type, hostId, hostName,
+                    now, state);
+        } while (!roomRegistry.register(room));
+        return room;
     }
-}
 
+    private static List<Room> toRooms(List<RoomRegistry.LiveRoom> rooms) {
+        List<Room> result = new ArrayList<>(rooms.size());
+        for (RoomRegistry.LiveRoom room : rooms) {
+            result.add(room.toRoom());
+        }
+        return result;
+    }
+}
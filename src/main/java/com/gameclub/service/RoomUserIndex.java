@@ -0,0 +1,88 @@
+package com.gameclub.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 用户 -> 参与的未结束房间（作为房主或客人）。由 {@link RoomRegistry} 的变化通知维护，
+ * 与注册表（也就是 rooms 表中未结束的房间）保持一致；查询一个用户的房间只与该用户的房间数有关。
+ */
+@Service
+public class RoomUserIndex implements RoomRegistry.Listener {
+
+    @Autowired
+    private RoomRegistry roomRegistry;
+
+    private final ConcurrentMap<String, Set<RoomRegistry.LiveRoom>> byUser = new ConcurrentHashMap<>();
+    // 房间 id -> 当前登记的客人，客人变化或离开时据此移除旧的登记
+    private final ConcurrentMap<Long, String> indexedGuests = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        roomRegistry.addListener(this);
+    }
+
+    /**
+     * 与大厅索引相同，按房间当前状态调整，同一房间的调整串行进行。
+     */
+    @Override
+    public void roomChanged(RoomRegistry.LiveRoom room) {
+        synchronized (room) {
+            RoomRegistry.State state = room.getState();
+            boolean live = state.getStatus() == RoomRegistry.WAITING || state.getStatus() == RoomRegistry.PLAYING;
+            String guest = live ? state.getGuestId() : null;
+            String previous = guest != null
+                    ? indexedGuests.put(room.getId(), guest)
+                    : indexedGuests.remove(room.getId());
+            if (previous != null && !previous.equals(guest)) {
+                remove(previous, room);
+            }
+            if (guest != null) {
+                add(guest, room);
+            }
+            if (live) {
+                add(room.getHostId(), room);
+            } else {
+                remove(room.getHostId(), room);
+            }
+        }
+    }
+
+    /**
+     * 用户参与的未结束房间，从新到旧。
+     */
+    public List<RoomRegistry.LiveRoom> rooms(String userId) {
+        roomRegistry.load();
+        Set<RoomRegistry.LiveRoom> rooms = byUser.get(userId);
+        if (rooms == null) {
+            return Collections.emptyList();
+        }
+        List<RoomRegistry.LiveRoom> result = new ArrayList<>(rooms);
+        result.sort((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()));
+        return result;
+    }
+
+    // 增删都在 compute 内完成，用户没有房间后移除的条目不会吞掉并发加入的房间
+    private void add(String userId, RoomRegistry.LiveRoom room) {
+        byUser.compute(userId, (k, rooms) -> {
+            Set<RoomRegistry.LiveRoom> updated = rooms != null ? rooms : ConcurrentHashMap.newKeySet();
+            updated.add(room);
+            return updated;
+        });
+    }
+
+    private void remove(String userId, RoomRegistry.LiveRoom room) {
+        byUser.computeIfPresent(userId, (k, rooms) -> {
+            rooms.remove(room);
+            return rooms.isEmpty() ? null : rooms;
+        });
+    }
+}
@@ -0,0 +1,144 @@
+package com.gameclub.service;
+
+import java.util.Arrays;
+
+/**
+ * 15x15 五子棋棋盘（无禁手，黑先，连成五子或以上获胜）。每种颜色一个位棋盘：
+ * 每行占 16 位（第 16 位恒为空，作为行间的隔离列），15 行共 240 位，每种颜色 4 个 long。
+ * 隔离列保证沿横向和两条斜向移动时不会从一行的末尾接到下一行的开头。
+ * 落子后只检查经过这颗棋子的四条线，每个方向最多向两侧各看 4 格，
+ * 每步是常数时间，也不分配对象。不是线程安全的，由调用方串行化对同一棋盘的访问。
+ */
+public final class WuziqiBoard {
+    public static final int SIZE = 15;
+
+    public static final int BLACK = 0;
+    public static final int WHITE = 1;
+
+    // play 的返回值：非负为合法落子后的局面，负数为非法落子的原因
+    public static final int ONGOING = 0;
+    public static final int WIN = 1;
+    public static final int DRAW = 2;
+    public static final int OUT_OF_BOARD = -1;
+    public static final int OCCUPIED = -2;
+    public static final int GAME_OVER = -3;
+
+    private static final int STRIDE = 16;
+    private static final int CELLS = SIZE * STRIDE;
+    private static final int WORDS = (CELLS + 63) / 64;
+    // 横、竖、左上-右下、右上-左下
+    private static final int[] DIRECTIONS = {1, STRIDE, STRIDE + 1, STRIDE - 1};
+
+    // 黑子占 [0, WORDS)，白子占 [WORDS, 2 * WORDS)
+    private final long[] stones = new long[WORDS * 2];
+    private final short[] moves = new short[SIZE * SIZE];
+    private int moveCount;
+    private int winner = -1;
+    private boolean over;
+
+    /**
+     * 当前一方在 (row, col) 落子，返回 ONGOING / WIN / DRAW，或非法落子的原因（OUT_OF_BOARD 等）。
+     * 非法落子不改变棋盘。
+     */
+    public int play(int row, int col) {
+        if (over) {
+            return GAME_OVER;
+        }
+        if (row < 0 || row >= SIZE || col < 0 || col >= SIZE) {
+            return OUT_OF_BOARD;
+        }
+        int index = row * STRIDE + col;
+        int word = index >>> 6;
+        long bit = 1L << index;
+        if (((stones[word] | stones[WORDS + word]) & bit) != 0) {
+            return OCCUPIED;
+        }
+        int color = moveCount & 1;
+        int base = color * WORDS;
+        stones[base + word] |= bit;
+        moves[moveCount++] = (short) index;
+        if (fiveThrough(base, index)) {
+            winner = color;
+            over = true;
+            return WIN;
+        }
+        if (moveCount == SIZE * SIZE) {
+            over = true;
+            return DRAW;
+        }
+        return ONGOING;
+    }
+
+    /**
+     * 清空棋盘，回到开局。
+     */
+    public void reset() {
+        Arrays.fill(stones, 0L);
+        moveCount = 0;
+        winner = -1;
+        over = false;
+    }
+
+    /**
+     * (row, col) 上的棋子：BLACK、WHITE，空位为 -1。
+     */
+    public int colorAt(int row, int col) {
+        int index = row * STRIDE + col;
+        if (has(0, index)) {
+            return BLACK;
+        }
+        return has(WORDS, index) ? WHITE : -1;
+    }
+
+    public int toMove() {
+        return moveCount & 1;
+    }
+
+    public int moveCount() {
+        return moveCount;
+    }
+
+    /**
+     * 第 i 步（从 0 开始）的行、列。
+     */
+    public int moveRow(int i) {
+        return moves[i] / STRIDE;
+    }
+
+    public int moveCol(int i) {
+        return moves[i] % STRIDE;
+    }
+
+    public boolean isOver() {
+        return over;
+    }
+
+    /**
+     * 获胜方颜色，未分胜负（进行中或和棋）时为 -1。
+     */
+    public int winner() {
+        return winner;
+    }
+
+    private boolean fiveThrough(int base, int index) {
+        for (int step : DIRECTIONS) {
+            if (1 + run(base, index, step) + run(base, index, -step) >= 5) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 从 index 沿 step 方向连续的同色棋子数，最多数到 4；隔离列和棋盘上下边界处停止
+    private int run(int base, int index, int step) {
+        int count = 0;
+        for (int i = index + step; count < 4 && i >= 0 && i < CELLS && has(base, i); i += step) {
+            count++;
+        }
+        return count;
+    }
+
+    private boolean has(int base, int index) {
+        return (stones[base + (index >>> 6)] & (1L << index)) != 0;
+    }
+}
@@ -0,0 +1,621 @@
+package com.gameclub.service;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 中国象棋棋盘。90 格数组（index = 行 * 9 + 列，第 0 行为红方底线），每格一个字节：0 为空，
+ * 低 3 位为兵种，第 4 位为颜色（0 红、1 黑）。每个兵种在每个格子上的走法在类加载时预先算好：
+ * 将、士限制在九宫内，象不能过河且有象眼，马有马腿，兵过河后才能横走，车、炮沿四个方向的射线；
+ * 另有反向表（哪些格子上的马、兵能攻击某一格），判断将军时只需从将所在的格子出发查表和扫描射线。
+ * 走法先按兵种生成，落子后己方的将被攻击（包括两将照面）即为非法。
+ * 无子可走时判负（被将死或困毙）；同一局面第三次出现时，若这期间只有一方步步将军则长将的一方判负，否则判和。
+ * 局面用 Zobrist 哈希记录，生成走法和判断局面时不分配对象。不是线程安全的，由调用方串行化对同一棋盘的访问。
+ */
+public final class XiangqiBoard {
+    public static final String START_FEN = "rnbakabnr/9/1c5c1/p1p1p1p1p/9/9/P1P1P1P1P/1C5C1/9/RNBAKABNR w - - 0 1";
+
+    public static final int RED = 0;
+    public static final int BLACK = 1;
+
+    // play 的返回值：非负为合法走子后的局面状态，负数为非法走子的原因
+    public static final int ONGOING = 0;
+    public static final int CHECKMATE = 1;
+    public static final int STALEMATE = 2;
+    public static final int REPETITION = 3;
+    public static final int PERPETUAL_CHECK = 4;
+    public static final int ILLEGAL = -1;
+    public static final int GAME_OVER = -2;
+
+    /**
+     * 一个局面的伪合法走法不超过这个数，generateLegal 的缓冲区至少要这么大。
+     */
+    public static final int MAX_MOVES = 256;
+
+    private static final int FILES = 9;
+    private static final int RANKS = 10;
+    private static final int SQUARES = FILES * RANKS;
+
+    private static final int KING = 1;
+    private static final int ADVISOR = 2;
+    private static final int ELEPHANT = 3;
+    private static final int HORSE = 4;
+    private static final int ROOK = 5;
+    private static final int CANNON = 6;
+    private static final int PAWN = 7;
+    private static final String PIECE_CHARS = ".KABNRCP";
+
+    private static final int[][] KING_TO = new int[SQUARES][];
+    private static final int[][] ADVISOR_TO = new int[SQUARES][];
+    private static final int[][] ELEPHANT_TO = new int[SQUARES][];
+    private static final int[][] ELEPHANT_EYE = new int[SQUARES][];
+    private static final int[][] HORSE_TO = new int[SQUARES][];
+    private static final int[][] HORSE_LEG = new int[SQUARES][];
+    // [颜色][格子]
+    private static final int[][][] PAWN_TO = new int[2][SQUARES][];
+    // [格子][上、下、右、左]，由近到远
+    private static final int[][][] RAYS = new int[SQUARES][4][];
+    // 能攻击该格的马所在的格子及其马腿
+    private static final int[][] HORSE_FROM = new int[SQUARES][];
+    private static final int[][] HORSE_FROM_LEG = new int[SQUARES][];
+    // [颜色][格子]：该颜色的兵在哪些格子上能攻击该格
+    private static final int[][][] PAWN_FROM = new int[2][SQUARES][];
+    // [棋子][格子]，以及轮到黑方走时的附加值
+    private static final long[][] ZOBRIST = new long[16][SQUARES];
+    private static final long ZOBRIST_BLACK;
+
+    static {
+        int[][] horseFrom = new int[SQUARES][8];
+        int[][] horseFromLeg = new int[SQUARES][8];
+        int[] horseFromCount = new int[SQUARES];
+        int[][][] pawnFrom = new int[2][SQUARES][3];
+        int[][] pawnFromCount = new int[2][SQUARES];
+        int[] buffer = new int[8];
+        int[] legs = new int[8];
+        for (int sq = 0; sq < SQUARES; sq++) {
+            int rank = sq / FILES;
+            int file = sq % FILES;
+
+            int n = 0;
+            for (int[] d : new int[][]{{1, 0}, {-1, 0}, {0, 1}, {0, -1}}) {
+                if (inPalace(rank, file) && inPalace(rank + d[0], file + d[1])
+                        && sameHalf(rank, rank + d[0])) {
+                    buffer[n++] = square(rank + d[0], file + d[1]);
+                }
+            }
+            KING_TO[sq] = Arrays.copyOf(buffer, n);
+
+            n = 0;
+            for (int[] d : new int[][]{{1, 1}, {1, -1}, {-1, 1}, {-1, -1}}) {
+                if (inPalace(rank, file) && inPalace(rank + d[0], file + d[1])
+                        && sameHalf(rank, rank + d[0])) {
+                    buffer[n++] = square(rank + d[0], file + d[1]);
+                }
+            }
+            ADVISOR_TO[sq] = Arrays.copyOf(buffer, n);
+
+            n = 0;
+            for (int[] d : new int[][]{{2, 2}, {2, -2}, {-2, 2}, {-2, -2}}) {
+                if (onBoard(rank + d[0], file + d[1]) && sameHalf(rank, rank + d[0])) {
+                    legs[n] = square(rank + d[0] / 2, file + d[1] / 2);
+                    buffer[n++] = square(rank + d[0], file + d[1]);
+                }
+            }
+            ELEPHANT_TO[sq] = Arrays.copyOf(buffer, n);
+            ELEPHANT_EYE[sq] = Arrays.copyOf(legs, n);
+
+            n = 0;
+            for (int[] d : new int[][]{{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {-1, 2}, {1, -2}, {-1, -2}}) {
+                if (onBoard(rank + d[0], file + d[1])) {
+                    int to = square(rank + d[0], file + d[1]);
+                    int leg = Math.abs(d[0]) == 2 ? square(rank + d[0] / 2, file) : square(rank, file + d[1] / 2);
+                    legs[n] = leg;
+                    buffer[n++] = to;
+                    horseFrom[to][horseFromCount[to]] = sq;
+                    horseFromLeg[to][horseFromCount[to]++] = leg;
+                }
+            }
+            HORSE_TO[sq] = Arrays.copyOf(buffer, n);
+            HORSE_LEG[sq] = Arrays.copyOf(legs, n);
+
+            for (int color = RED; color <= BLACK; color++) {
+                int forward = color == RED ? 1 : -1;
+                boolean crossed = color == RED ? rank >= 5 : rank <= 4;
+                n = 0;
+                if (onBoard(rank + forward, file)) {
+                    buffer[n++] = square(rank + forward, file);
+                }
+                if (crossed) {
+                    if (file > 0) {
+                        buffer[n++] = square(rank, file - 1);
+                    }
+                    if (file < FILES - 1) {
+                        buffer[n++] = square(rank, file + 1);
+                    }
+                }
+                PAWN_TO[color][sq] = Arrays.copyOf(buffer, n);
+                for (int i = 0; i < n; i++) {
+                    pawnFrom[color][buffer[i]][pawnFromCount[color][buffer[i]]++] = sq;
+                }
+            }
+
+            int[][] directions = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+            for (int d = 0; d < 4; d++) {
+                n = 0;
+                int[] ray = new int[RANKS];
+                for (int r = rank + directions[d][0], f = file + directions[d][1]; onBoard(r, f);
+                     r += directions[d][0], f += directions[d][1]) {
+                    ray[n++] = square(r, f);
+                }
+                RAYS[sq][d] = Arrays.copyOf(ray, n);
+            }
+        }
+        for (int sq = 0; sq < SQUARES; sq++) {
+            HORSE_FROM[sq] = Arrays.copyOf(horseFrom[sq], horseFromCount[sq]);
+            HORSE_FROM_LEG[sq] = Arrays.copyOf(horseFromLeg[sq], horseFromCount[sq]);
+            for (int color = RED; color <= BLACK; color++) {
+                PAWN_FROM[color][sq] = Arrays.copyOf(pawnFrom[color][sq], pawnFromCount[color][sq]);
+            }
+        }
+        // 固定种子，同一局面在不同进程中的哈希相同
+        Random random = new Random(0x5A0BL);
+        for (long[] squares : ZOBRIST) {
+            for (int sq = 0; sq < SQUARES; sq++) {
+                squares[sq] = random.nextLong();
+            }
+        }
+        ZOBRIST_BLACK = random.nextLong();
+    }
+
+    private final byte[] board = new byte[SQUARES];
+    private final int[] kings = new int[2];
+    private final int startSide;
+    private int side;
+    private long hash;
+    // 第 i 步：走法、被吃的棋子、走之前的局面哈希、走完后对方是否被将军
+    private int[] moves = new int[256];
+    private byte[] captured = new byte[256];
+    private long[] hashes = new long[256];
+    private boolean[] checks = new boolean[256];
+    private int ply;
+    private int status = ONGOING;
+    private int winner = -1;
+    private final int[] scratch = new int[MAX_MOVES];
+    private int[][] perftMoves = new int[0][];
+
+    public XiangqiBoard() {
+        this(START_FEN);
+    }
+
+    /**
+     * 从 FEN 建立局面（红方大写、黑方小写，马可写作 N 或 H，象可写作 B 或 E；轮走方 w/r 为红、b 为黑）。
+     * 格式不对或缺少将帅时抛出 IllegalArgumentException。
+     */
+    public XiangqiBoard(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        String[] ranks = fields[0].split("/");
+        if (ranks.length != RANKS) {
+            throw new IllegalArgumentException("FEN 行数不对: " + fen);
+        }
+        kings[RED] = -1;
+        kings[BLACK] = -1;
+        for (int i = 0; i < RANKS; i++) {
+            int rank = RANKS - 1 - i;
+            int file = 0;
+            for (char c : ranks[i].toCharArray()) {
+                if (c >= '1' && c <= '9') {
+                    file += c - '0';
+                    continue;
+                }
+                int type = PIECE_CHARS.indexOf(normalize(Character.toUpperCase(c)));
+                if (type <= 0 || file >= FILES) {
+                    throw new IllegalArgumentException("FEN 格式不对: " + fen);
+                }
+                int color = Character.isUpperCase(c) ? RED : BLACK;
+                int sq = square(rank, file++);
+                board[sq] = (byte) (color << 3 | type);
+                hash ^= ZOBRIST[board[sq]][sq];
+                if (type == KING) {
+                    kings[color] = sq;
+                }
+            }
+            if (file != FILES) {
+                throw new IllegalArgumentException("FEN 格式不对: " + fen);
+            }
+        }
+        if (kings[RED] < 0 || kings[BLACK] < 0) {
+            throw new IllegalArgumentException("FEN 缺少将帅: " + fen);
+        }
+        side = fields.length > 1 && "b".equals(fields[1]) ? BLACK : RED;
+        startSide = side;
+        if (side == BLACK) {
+            hash ^= ZOBRIST_BLACK;
+        }
+    }
+
+    /**
+     * 当前一方从 from 走到 to（格子编号见 {@link #square(String)}），返回走后的局面状态，
+     * 或 ILLEGAL / GAME_OVER。非法走子不改变棋盘。
+     */
+    public int play(int from, int to) {
+        if (status != ONGOING) {
+            return GAME_OVER;
+        }
+        if (from < 0 || from >= SQUARES || to < 0 || to >= SQUARES) {
+            return ILLEGAL;
+        }
+        int move = from | to << 7;
+        int count = generateLegal(scratch);
+        int i = 0;
+        while (i < count && scratch[i] != move) {
+            i++;
+        }
+        if (i == count) {
+            return ILLEGAL;
+        }
+        make(move);
+        boolean check = kingAttacked(side);
+        checks[ply - 1] = check;
+        if (generateLegal(scratch) == 0) {
+            status = check ? CHECKMATE : STALEMATE;
+            winner = side ^ 1;
+        } else {
+            adjudicateRepetition();
+        }
+        return status;
+    }
+
+    /**
+     * 当前一方的全部合法走法写入 out（每个走法为 from | to << 7），返回个数。out 的长度至少为 MAX_MOVES。
+     */
+    public int generateLegal(int[] out) {
+        int count = generatePseudo(out);
+        int legal = 0;
+        for (int i = 0; i < count; i++) {
+            int move = out[i];
+            make(move);
+            if (!kingAttacked(side ^ 1)) {
+                out[legal++] = move;
+            }
+            unmake();
+        }
+        return legal;
+    }
+
+    /**
+     * 从当前局面出发 depth 层的叶子节点数，用于校验走法生成的正确性和速度。
+     */
+    public long perft(int depth) {
+        if (depth <= 0) {
+            return 1;
+        }
+        if (perftMoves.length < depth) {
+            perftMoves = new int[depth][MAX_MOVES];
+        }
+        ensureCapacity(ply + depth);
+        return perft(depth, 0);
+    }
+
+    private long perft(int depth, int level) {
+        int[] buffer = perftMoves[level];
+        int count = generatePseudo(buffer);
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            make(buffer[i]);
+            if (!kingAttacked(side ^ 1)) {
+                nodes += depth == 1 ? 1 : perft(depth - 1, level + 1);
+            }
+            unmake();
+        }
+        return nodes;
+    }
+
+    public boolean inCheck() {
+        return kingAttacked(side);
+    }
+
+    public int toMove() {
+        return side;
+    }
+
+    public int status() {
+        return status;
+    }
+
+    /**
+     * 获胜方颜色，进行中或和棋时为 -1。
+     */
+    public int winner() {
+        return winner;
+    }
+
+    public int moveCount() {
+        return ply;
+    }
+
+    /**
+     * 第 i 步（从 0 开始）的坐标记法，如 "h2e2"。
+     */
+    public String moveName(int i) {
+        return squareName(moves[i] & 0x7F) + squareName(moves[i] >>> 7);
+    }
+
+    /**
+     * 第 i 步是否吃子。
+     */
+    public boolean isCapture(int i) {
+        return captured[i] != 0;
+    }
+
+    public long hash() {
+        return hash;
+    }
+
+    public String fen() {
+        StringBuilder fen = new StringBuilder();
+        for (int rank = RANKS - 1; rank >= 0; rank--) {
+            int empty = 0;
+            for (int file = 0; file < FILES; file++) {
+                int piece = board[square(rank, file)];
+                if (piece == 0) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                char c = PIECE_CHARS.charAt(piece & 7);
+                fen.append(piece >>> 3 == RED ? c : Character.toLowerCase(c));
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (rank > 0) {
+                fen.append('/');
+            }
+        }
+        return fen.append(side == RED ? " w" : " b").toString();
+    }
+
+    /**
+     * 坐标记法的格子编号：列 a-i（红方从左到右），行 0-9（红方底线为 0），如 "e0" 为红帅的初始位置。
+     * 格式不对时返回 -1。
+     */
+    public static int square(String name) {
+        if (name == null || name.length() != 2) {
+            return -1;
+        }
+        int file = name.charAt(0) - 'a';
+        int rank = name.charAt(1) - '0';
+        return onBoard(rank, file) ? square(rank, file) : -1;
+    }
+
+    public static String squareName(int sq) {
+        return new String(new char[]{(char) ('a' + sq % FILES), (char) ('0' + sq / FILES)});
+    }
+
+    // 同一局面第三次出现（中间没有吃子）：只有一方在此期间每步都将军时判其负，否则判和
+    private void adjudicateRepetition() {
+        int first = -1;
+        int seen = 1;
+        for (int i = ply - 1; i >= 0 && captured[i] == 0; i--) {
+            if (((ply - i) & 1) == 0 && hashes[i] == hash) {
+                seen++;
+                first = i;
+            }
+        }
+        if (seen < 3) {
+            return;
+        }
+        boolean redChecks = true;
+        boolean blackChecks = true;
+        for (int i = first; i < ply; i++) {
+            if (!checks[i]) {
+                if ((startSide ^ (i & 1)) == RED) {
+                    redChecks = false;
+                } else {
+                    blackChecks = false;
+                }
+            }
+        }
+        if (redChecks != blackChecks) {
+            status = PERPETUAL_CHECK;
+            winner = redChecks ? BLACK : RED;
+        } else {
+            status = REPETITION;
+        }
+    }
+
+    private int generatePseudo(int[] out) {
+        int count = 0;
+        int own = side;
+        for (int from = 0; from < SQUARES; from++) {
+            int piece = board[from];
+            if (piece == 0 || piece >>> 3 != own) {
+                continue;
+            }
+            switch (piece & 7) {
+                case KING:
+                    count = addSteps(out, count, from, KING_TO[from]);
+                    break;
+                case ADVISOR:
+                    count = addSteps(out, count, from, ADVISOR_TO[from]);
+                    break;
+                case ELEPHANT:
+                    count = addBlockable(out, count, from, ELEPHANT_TO[from], ELEPHANT_EYE[from]);
+                    break;
+                case HORSE:
+                    count = addBlockable(out, count, from, HORSE_TO[from], HORSE_LEG[from]);
+                    break;
+                case ROOK:
+                    for (int[] ray : RAYS[from]) {
+                        for (int to : ray) {
+                            int target = board[to];
+                            if (target == 0) {
+                                out[count++] = from | to << 7;
+                                continue;
+                            }
+                            if (target >>> 3 != own) {
+                                out[count++] = from | to << 7;
+                            }
+                            break;
+                        }
+                    }
+                    break;
+                case CANNON:
+                    for (int[] ray : RAYS[from]) {
+                        int i = 0;
+                        while (i < ray.length && board[ray[i]] == 0) {
+                            out[count++] = from | ray[i++] << 7;
+                        }
+                        // 跳过炮架，吃后面的第一个棋子
+                        for (i++; i < ray.length; i++) {
+                            int target = board[ray[i]];
+                            if (target != 0) {
+                                if (target >>> 3 != own) {
+                                    out[count++] = from | ray[i] << 7;
+                                }
+                                break;
+                            }
+                        }
+                    }
+                    break;
+                default:
+                    count = addSteps(out, count, from, PAWN_TO[own][from]);
+                    break;
+            }
+        }
+        return count;
+    }
+
+    private int addSteps(int[] out, int count, int from, int[] targets) {
+        for (int to : targets) {
+            int target = board[to];
+            if (target == 0 || target >>> 3 != side) {
+                out[count++] = from | to << 7;
+            }
+        }
+        return count;
+    }
+
+    private int addBlockable(int[] out, int count, int from, int[] targets, int[] blockers) {
+        for (int i = 0; i < targets.length; i++) {
+            int target = board[targets[i]];
+            if (board[blockers[i]] == 0 && (target == 0 || target >>> 3 != side)) {
+                out[count++] = from | targets[i] << 7;
+            }
+        }
+        return count;
+    }
+
+    // color 的将是否被对方攻击；对方的将在同一条射线上且中间无子即为照面
+    private boolean kingAttacked(int color) {
+        int king = kings[color];
+        int enemy = (color ^ 1) << 3;
+        for (int[] ray : RAYS[king]) {
+            int i = 0;
+            while (i < ray.length && board[ray[i]] == 0) {
+                i++;
+            }
+            if (i == ray.length) {
+                continue;
+            }
+            int piece = board[ray[i]];
+            if (piece == (enemy | ROOK) || piece == (enemy | KING)) {
+                return true;
+            }
+            for (i++; i < ray.length; i++) {
+                piece = board[ray[i]];
+                if (piece != 0) {
+                    if (piece == (enemy | CANNON)) {
+                        return true;
+                    }
+                    break;
+                }
+            }
+        }
+        int[] horses = HORSE_FROM[king];
+        int[] horseLegs = HORSE_FROM_LEG[king];
+        for (int i = 0; i < horses.length; i++) {
+            if (board[horses[i]] == (enemy | HORSE) && board[horseLegs[i]] == 0) {
+                return true;
+            }
+        }
+        for (int sq : PAWN_FROM[color ^ 1][king]) {
+            if (board[sq] == (enemy | PAWN)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void make(int move) {
+        if (ply == moves.length) {
+            ensureCapacity(ply * 2);
+        }
+        int from = move & 0x7F;
+        int to = move >>> 7;
+        byte piece = board[from];
+        byte victim = board[to];
+        moves[ply] = move;
+        captured[ply] = victim;
+        hashes[ply] = hash;
+        ply++;
+        hash ^= ZOBRIST[piece][from] ^ ZOBRIST[piece][to] ^ ZOBRIST_BLACK;
+        if (victim != 0) {
+            hash ^= ZOBRIST[victim][to];
+        }
+        board[to] = piece;
+        board[from] = 0;
+        if ((piece & 7) == KING) {
+            kings[side] = to;
+        }
+        side ^= 1;
+    }
+
+    private void unmake() {
+        ply--;
+        side ^= 1;
+        int move = moves[ply];
+        int from = move & 0x7F;
+        int to = move >>> 7;
+        byte piece = board[to];
+        board[from] = piece;
+        board[to] = captured[ply];
+        hash = hashes[ply];
+        if ((piece & 7) == KING) {
+            kings[side] = from;
+        }
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > moves.length) {
+            int capacity = Math.max(size, moves.length * 2);
+            moves = Arrays.copyOf(moves, capacity);
+            captured = Arrays.copyOf(captured, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            checks = Arrays.copyOf(checks, capacity);
+        }
+    }
+
+    private static char normalize(char c) {
+        return c == 'H' ? 'N' : c == 'E' ? 'B' : c;
+    }
+
+    private static int square(int rank, int file) {
+        return rank * FILES + file;
+    }
+
+    private static boolean onBoard(int rank, int file) {
+        return rank >= 0 && rank < RANKS && file >= 0 && file < FILES;
+    }
+
+    private static boolean inPalace(int rank, int file) {
+        return file >= 3 && file <= 5 && (rank <= 2 || rank >= 7) && rank >= 0 && rank < RANKS;
+    }
+
+    private static boolean sameHalf(int rank, int other) {
+        return rank <= 4 == other <= 4;
+    }
+}